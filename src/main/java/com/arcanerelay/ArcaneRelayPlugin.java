@@ -1,9 +1,11 @@
 package com.arcanerelay;
 
 import com.arcanerelay.config.Activation;
+import com.arcanerelay.config.ActivationBinding;
 import com.arcanerelay.config.ActivationBindingRegistry;
 import com.arcanerelay.config.ActivationRegistry;
 import com.arcanerelay.config.types.ArcaneDischargeActivation;
+import com.arcanerelay.config.types.AreaActivation;
 import com.arcanerelay.config.types.ChainActivation;
 import com.arcanerelay.config.types.MoveBlockActivation;
 import com.arcanerelay.config.types.SendSignalActivation;
@@ -25,10 +27,15 @@ import com.arcanerelay.systems.ArcaneOnPlaceSystem;
 import com.arcanerelay.systems.ArcaneStaffHudSystem;
 import com.arcanerelay.systems.ArcaneTickSystem;
 import com.arcanerelay.ui.ArcaneTriggerPageSupplier;
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.assetstore.event.RemovedAssetsEvent;
+import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
 import com.hypixel.hytale.component.ComponentRegistryProxy;
 import com.hypixel.hytale.component.ComponentType;
 import com.hypixel.hytale.component.ResourceType;
 import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.event.events.BootEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
@@ -43,6 +50,7 @@ public class ArcaneRelayPlugin extends JavaPlugin {
 
     private static ArcaneRelayPlugin instance;
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final String BINDING_INDEX_CACHE_FILE = "binding-index.cache";
 
     private final ActivationBindingRegistry activationBindingRegistry = new ActivationBindingRegistry();
     private final ActivationRegistry activationRegistry = new ActivationRegistry(activationBindingRegistry);
@@ -99,6 +107,7 @@ public class ArcaneRelayPlugin extends JavaPlugin {
 
         ActivationRegistry.registerAssetStore();
         ActivationBindingRegistry.registerAssetStore();
+        this.activationRegistry.setBindingIndexCacheFile(this.getDataDirectory().resolve(BINDING_INDEX_CACHE_FILE));
 
         this.getCodecRegistry(Activation.CODEC)
                 .register("ToggleState", ToggleStateActivation.class, ToggleStateActivation.CODEC)
@@ -106,16 +115,47 @@ public class ArcaneRelayPlugin extends JavaPlugin {
                 .register("ArcaneDischarge", ArcaneDischargeActivation.class, ArcaneDischargeActivation.CODEC)
                 .register("MoveBlock", MoveBlockActivation.class, MoveBlockActivation.CODEC)
                 .register("Chain", ChainActivation.class, ChainActivation.CODEC)
-                .register("ToggleDoor", ToggleDoorActivation.class, ToggleDoorActivation.CODEC);
+                .register("ToggleDoor", ToggleDoorActivation.class, ToggleDoorActivation.CODEC)
+                .register("Area", AreaActivation.class, AreaActivation.CODEC);
 
-        this.getEventRegistry().registerGlobal(BootEvent.class, event -> {
-            this.activationRegistry.onAssetsLoaded();
-            this.activationBindingRegistry.onAssetsLoaded();
-        });
+        this.getEventRegistry().registerGlobal(BootEvent.class, event -> this.activationRegistry.onAssetsLoaded());
+        this.getEventRegistry().register(LoadedAssetsEvent.class, Activation.class, this::onActivationsLoaded);
+        this.getEventRegistry().register(RemovedAssetsEvent.class, Activation.class, this::onActivationsRemoved);
+        this.getEventRegistry().register(LoadedAssetsEvent.class, ActivationBinding.class, this::onBindingsLoaded);
+        this.getEventRegistry().register(RemovedAssetsEvent.class, ActivationBinding.class, this::onBindingsRemoved);
+        this.getEventRegistry().register(LoadedAssetsEvent.class, BlockType.class, this::onBlockTypesLoaded);
 
         LOGGER.atInfo().log("ArcaneRelay setup complete");
     }
 
+    private void onActivationsLoaded(@Nonnull LoadedAssetsEvent<String, Activation, DefaultAssetMap<String, Activation>> event) {
+        this.reloadActivations();
+    }
+
+    private void onActivationsRemoved(@Nonnull RemovedAssetsEvent<String, Activation, DefaultAssetMap<String, Activation>> event) {
+        this.reloadActivations();
+    }
+
+    private void onBindingsLoaded(@Nonnull LoadedAssetsEvent<String, ActivationBinding, DefaultAssetMap<String, ActivationBinding>> event) {
+        this.reloadActivations();
+    }
+
+    private void onBindingsRemoved(@Nonnull RemovedAssetsEvent<String, ActivationBinding, DefaultAssetMap<String, ActivationBinding>> event) {
+        this.reloadActivations();
+    }
+
+    private void onBlockTypesLoaded(@Nonnull LoadedAssetsEvent<String, BlockType, BlockTypeAssetMap<String, BlockType>> event) {
+        this.reloadActivations();
+    }
+
+    /** Asset store updates after boot recompile the activation snapshot off-thread; the initial load is handled at boot. */
+    private void reloadActivations() {
+        if (!this.activationRegistry.isAssetsCached()) return;
+
+        LOGGER.atInfo().log("ArcaneRelay reloading activations");
+        this.activationRegistry.reloadAsync();
+    }
+
     @Nonnull
     public ActivationBindingRegistry getActivationBindingRegistry() {
         return activationBindingRegistry;
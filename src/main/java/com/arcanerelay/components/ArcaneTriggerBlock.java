@@ -1,6 +1,7 @@
 package com.arcanerelay.components;
 
 import com.arcanerelay.ArcaneRelayPlugin;
+import com.arcanerelay.util.BlockUtil;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
@@ -10,8 +11,10 @@ import com.hypixel.hytale.math.codec.Vector3iArrayCodec;
 import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.Nonnull;
@@ -29,10 +32,26 @@ public class ArcaneTriggerBlock implements Component<ChunkStore> {
             b -> b.getOutputPositions().toArray(Vector3i[]::new)
         )
         .add()
+        .append(
+            new KeyedCodec<>("ChargedSources", new ArrayCodec<>(new Vector3iArrayCodec(), Vector3i[]::new)),
+            (b, positions) -> {
+                b.chargedSources = NO_CHARGES;
+                b.chargeCount = 0;
+                for (Vector3i p : positions) {
+                    b.addChargeFrom(p.getX(), p.getY(), p.getZ());
+                }
+            },
+            b -> b.getChargedSources().toArray(Vector3i[]::new)
+        )
+        .add()
         .build();
 
+    private static final long[] NO_CHARGES = new long[0];
+
     private HashSet<Vector3i> outputPositions = new HashSet<>();
-    private HashSet<Vector3i> chargedSources = new HashSet<>();
+    /** Packed positions ({@link BlockUtil#pack}) of the sources that charged this block; only the first {@link #chargeCount} are used. */
+    private long[] chargedSources = NO_CHARGES;
+    private int chargeCount;
 
     public static ComponentType<ChunkStore, ArcaneTriggerBlock> getComponentType() {
         return ArcaneRelayPlugin.get().getArcaneTriggerBlockComponentType();
@@ -72,12 +91,17 @@ public class ArcaneTriggerBlock implements Component<ChunkStore> {
     /** Positions that have contributed a charge this cycle (for arcane discharge unique-source logic). */
     @Nonnull
     public Set<Vector3i> getChargedSources() {
-        return Collections.unmodifiableSet(chargedSources);
+        Set<Vector3i> sources = new LinkedHashSet<>(chargeCount * 2);
+        for (int i = 0; i < chargeCount; i++) {
+            long packed = chargedSources[i];
+            sources.add(new Vector3i(BlockUtil.unpackX(packed), BlockUtil.unpackY(packed), BlockUtil.unpackZ(packed)));
+        }
+        return Collections.unmodifiableSet(sources);
     }
 
     /** Number of unique sources that have charged this block this cycle. */
     public int getChargeCount() {
-        return chargedSources.size();
+        return chargeCount;
     }
 
     /**
@@ -89,13 +113,22 @@ public class ArcaneTriggerBlock implements Component<ChunkStore> {
      * @return true if this was a new (unique) source and the charge should advance state; false if duplicate
      */
     public boolean addChargeFrom(int sourceX, int sourceY, int sourceZ) {
-        Vector3i pos = new Vector3i(sourceX, sourceY, sourceZ);
-        return chargedSources.add(pos);
+        long packed = BlockUtil.pack(sourceX, sourceY, sourceZ);
+        for (int i = 0; i < chargeCount; i++) {
+            if (chargedSources[i] == packed) return false;
+        }
+
+        if (chargeCount == chargedSources.length) {
+            chargedSources = Arrays.copyOf(chargedSources, Math.max(4, chargeCount * 2));
+        }
+        chargedSources[chargeCount++] = packed;
+        return true;
     }
 
     /** Clears all charged sources (e.g. when discharge block resets to Off). */
     public void clearCharges() {
-        chargedSources.clear();
+        chargedSources = NO_CHARGES;
+        chargeCount = 0;
     }
 
     @Nonnull
@@ -105,9 +138,8 @@ public class ArcaneTriggerBlock implements Component<ChunkStore> {
         for (Vector3i p : outputPositions) {
             clone.outputPositions.add(p.clone());
         }
-        for (Vector3i p : chargedSources) {
-            clone.chargedSources.add(p.clone());
-        }
+        clone.chargedSources = chargeCount == 0 ? NO_CHARGES : Arrays.copyOf(chargedSources, chargeCount);
+        clone.chargeCount = chargeCount;
         return clone;
     }
 }
@@ -10,6 +10,7 @@ import com.hypixel.hytale.codec.builder.BuilderCodec;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 
 public abstract class Activation implements JsonAssetWithMap<String, DefaultAssetMap<String, Activation>> {
     public static final AssetCodecMapCodec<String, Activation> CODEC = new AssetCodecMapCodec<>(
@@ -29,12 +30,30 @@ public abstract class Activation implements JsonAssetWithMap<String, DefaultAsse
         )
         .documentation("Effects to play when the activation runs (e.g. sound at block position).")
         .add()
+        .appendInherited(
+            new KeyedCodec<>("Cooldown", Codec.INTEGER),
+            (a, c) -> a.cooldown = c,
+            a -> a.cooldown,
+            (a, parent) -> a.cooldown = parent.cooldown
+        )
+        .documentation("Arcane ticks after a run during which further signals to the same block are ignored (default: 0).")
+        .add()
+        .appendInherited(
+            new KeyedCodec<>("Debounce", Codec.INTEGER),
+            (a, d) -> a.debounce = d,
+            a -> a.debounce,
+            (a, parent) -> a.debounce = parent.debounce
+        )
+        .documentation("Quiet arcane ticks a block needs before it runs again; every signal received restarts the wait (default: 0).")
+        .add()
         .build();
 
     protected String id;
     protected AssetExtraInfo.Data data;
     @Nullable
     protected ActivationEffects effects;
+    protected int cooldown;
+    protected int debounce;
 
     @Nonnull
     @Override
@@ -51,5 +70,38 @@ public abstract class Activation implements JsonAssetWithMap<String, DefaultAsse
         this.effects = effects;
     }
 
+    public int getCooldown() {
+        return cooldown;
+    }
+
+    public int getDebounce() {
+        return debounce;
+    }
+
+    /** Whether runs of this activation go through the per-world cooldown table. */
+    public boolean isRateLimited() {
+        return cooldown > 0 || debounce > 0;
+    }
+
+    /**
+     * IDs of the activations this one runs (e.g. chain members), so that cycles can be rejected when the
+     * snapshot is compiled. Empty by default.
+     */
+    @Nonnull
+    public String[] getReferencedActivationIds() {
+        return new String[0];
+    }
+
     public abstract void execute(@Nonnull ActivationContext ctx);
+
+    /**
+     * Runs this activation for every target in a wave that resolved to it. Waves group their targets by
+     * activation and call this once per group; override it to hoist lookups out of the loop.
+     * The default runs {@link #execute} for each context.
+     */
+    public void executeBatch(@Nonnull List<ActivationContext> batch) {
+        for (ActivationContext ctx : batch) {
+            execute(ctx);
+        }
+    }
 }
@@ -8,6 +8,7 @@ import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
 import com.hypixel.hytale.server.core.asset.HytaleAssetStore;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -16,8 +17,13 @@ public final class ActivationBindingRegistry {
 
     public static final String DEFAULT_ACTIVATION_ID = "use_block";
 
-    private final List<BindingEntry> bindings = new ArrayList<>();
-    private String defaultActivationId = DEFAULT_ACTIVATION_ID;
+    /** Bindings registered from code; kept across reloads and checked before the asset bindings. */
+    private final List<BindingEntry> registeredBindings = new ArrayList<>();
+    private String registeredDefaultActivationId = DEFAULT_ACTIVATION_ID;
+    private volatile Bindings bindings = Bindings.EMPTY;
+    /** Runs after a code registration changes; recompiles the snapshot once the assets are loaded. */
+    @Nullable
+    private volatile Runnable changeListener;
 
     @SuppressWarnings("unchecked")
     public static void registerAssetStore() {
@@ -31,14 +37,51 @@ public final class ActivationBindingRegistry {
                 .build());
     }
 
-    public void onAssetsLoaded() {
+    /**
+     * Builds a new immutable binding list from the code registrations and the currently loaded
+     * binding assets. Does not publish it; see {@link ActivationRegistry#reload()}.
+     */
+    @Nonnull
+    public Bindings compile() {
+        List<BindingEntry> entries;
+        String defaultId;
+        synchronized (registeredBindings) {
+            entries = new ArrayList<>(registeredBindings);
+            defaultId = registeredDefaultActivationId;
+        }
+
+        for (ActivationBinding binding : getSortedBindingAssets()) {
+            if (binding.isDefaultBinding()) {
+                defaultId = binding.getActivation();
+            } else if (binding.getPattern() != null && !binding.getPattern().isBlank()) {
+                entries.add(new BindingEntry(binding.getPattern(), binding.getActivation()));
+            }
+        }
+        return new Bindings(entries, defaultId);
+    }
+
+    void publish(@Nonnull Bindings bindings) {
+        this.bindings = bindings;
+    }
+
+    void setChangeListener(@Nullable Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void fireChanged() {
+        Runnable listener = changeListener;
+        if (listener != null) listener.run();
+    }
+
+    @Nonnull
+    private static List<ActivationBinding> getSortedBindingAssets() {
         AssetStore<String, ActivationBinding, ? extends AssetMap<String, ActivationBinding>> store =
             AssetRegistry.getAssetStore(ActivationBinding.class);
 
-        if (store == null) return;
+        if (store == null) return List.of();
 
         AssetMap<String, ActivationBinding> map = store.getAssetMap();
-        if (map == null) return;
+        if (map == null) return List.of();
 
         var bindings = new ArrayList<>(map.getAssetMap().values());
         bindings.sort((a, b) -> {
@@ -51,29 +94,42 @@ public final class ActivationBindingRegistry {
 
             return a.getId().compareTo(b.getId());
         });
-        for (ActivationBinding binding : bindings) {
-            if (binding.isDefaultBinding()) {
-                this.setDefaultActivationId(binding.getActivation());
-            } else if (binding.getPattern() != null && !binding.getPattern().isBlank()) {
-                this.registerBinding(binding.getPattern(), binding.getActivation());
-            }
-        }
+        return bindings;
     }
 
+    /**
+     * Registers a binding from code. Before boot it is picked up by the first snapshot; afterwards the snapshot
+     * is recompiled in the background and published as soon as it is ready.
+     */
     public void registerBinding(@Nonnull String pattern, @Nonnull String activationId) {
-        bindings.add(new BindingEntry(matcherFromPattern(pattern), Objects.requireNonNull(activationId)));
+        synchronized (registeredBindings) {
+            registeredBindings.add(new BindingEntry(pattern, Objects.requireNonNull(activationId)));
+        }
+        fireChanged();
     }
 
+    /** Registers a binding from code; see {@link #registerBinding(String, String)} for when it applies. */
     public void registerBinding(@Nonnull BlockTypeMatcher matcher, @Nonnull String activationId) {
-        bindings.add(new BindingEntry(Objects.requireNonNull(matcher), Objects.requireNonNull(activationId)));
+        synchronized (registeredBindings) {
+            registeredBindings.add(new BindingEntry(null, Objects.requireNonNull(matcher), Objects.requireNonNull(activationId)));
+        }
+        fireChanged();
     }
 
+    /** Registers a binding from code ahead of all others; applies like {@link #registerBinding(String, String)}. */
     public void registerBindingWithPriority(@Nonnull String pattern, @Nonnull String activationId) {
-        bindings.addFirst(new BindingEntry(matcherFromPattern(pattern), Objects.requireNonNull(activationId)));
+        synchronized (registeredBindings) {
+            registeredBindings.addFirst(new BindingEntry(pattern, Objects.requireNonNull(activationId)));
+        }
+        fireChanged();
     }
 
+    /** Sets the fallback activation used when no binding matches, unless a Default binding asset overrides it. */
     public void setDefaultActivationId(@Nonnull String activationId) {
-        this.defaultActivationId = Objects.requireNonNull(activationId);
+        synchronized (registeredBindings) {
+            this.registeredDefaultActivationId = Objects.requireNonNull(activationId);
+        }
+        fireChanged();
     }
 
     public static BlockTypeMatcher matcherFromPattern(@Nonnull String pattern) {
@@ -99,19 +155,63 @@ public final class ActivationBindingRegistry {
 
     @Nonnull
     public String getActivationId(@Nonnull String blockTypeKey) {
-        for (BindingEntry entry : bindings) {
-            if (entry.matcher.matches(blockTypeKey)) {
-                return entry.activationId;
+        return bindings.getActivationId(blockTypeKey);
+    }
+
+    /** Immutable, ordered binding list. First matching entry wins, otherwise the default activation. */
+    public static final class Bindings {
+        static final Bindings EMPTY = new Bindings(List.of(), DEFAULT_ACTIVATION_ID);
+
+        private final List<BindingEntry> entries;
+        private final String defaultActivationId;
+
+        Bindings(@Nonnull List<BindingEntry> entries, @Nonnull String defaultActivationId) {
+            this.entries = List.copyOf(entries);
+            this.defaultActivationId = defaultActivationId;
+        }
+
+        @Nonnull
+        public String getActivationId(@Nonnull String blockTypeKey) {
+            for (BindingEntry entry : entries) {
+                if (entry.matcher.matches(blockTypeKey)) {
+                    return entry.activationId;
+                }
             }
+            return defaultActivationId;
+        }
+
+        @Nonnull
+        public String getDefaultActivationId() {
+            return defaultActivationId;
+        }
+
+        /**
+         * Canonical text of every binding in order, used to key the on-disk binding index.
+         * Null when a binding was registered with a code-only {@link BlockTypeMatcher}, which cannot be described.
+         */
+        @Nullable
+        String describe() {
+            StringBuilder sb = new StringBuilder("default=").append(defaultActivationId).append('\n');
+            for (BindingEntry entry : entries) {
+                if (entry.pattern == null) return null;
+                sb.append(entry.pattern).append("=").append(entry.activationId).append('\n');
+            }
+            return sb.toString();
         }
-        return defaultActivationId;
     }
 
-    private static final class BindingEntry {
+    static final class BindingEntry {
+        @Nullable
+        final String pattern;
         final BlockTypeMatcher matcher;
         final String activationId;
 
-        BindingEntry(BlockTypeMatcher matcher, String activationId) {
+        BindingEntry(@Nonnull String pattern, String activationId) {
+            this(pattern, matcherFromPattern(pattern), activationId);
+        }
+
+        BindingEntry(@Nullable String pattern, BlockTypeMatcher matcher, String activationId) {
+            this.pattern = pattern;
             this.matcher = matcher;
             this.activationId = activationId;
         }
@@ -1,5 +1,6 @@
 package com.arcanerelay.config;
 
+import com.arcanerelay.ArcaneRelayPlugin;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.universe.world.World;
@@ -16,6 +17,37 @@ public record ActivationContext(
     int blockX,
     int blockY,
     int blockZ,
+    int blockId,
     @Nonnull BlockType blockType,
-    @Nonnull List<int[]> sources
-) {}
+    @Nonnull List<int[]> sources,
+    @Nonnull ActivationSnapshot snapshot
+) {
+    /** Context resolved against the currently published snapshot (outside of a wave). */
+    public ActivationContext(
+        @Nonnull World world,
+        @Nonnull Store<ChunkStore> store,
+        @Nonnull WorldChunk chunk,
+        int blockX,
+        int blockY,
+        int blockZ,
+        int blockId,
+        @Nonnull BlockType blockType,
+        @Nonnull List<int[]> sources
+    ) {
+        this(world, store, chunk, blockX, blockY, blockZ, blockId, blockType, sources,
+            ArcaneRelayPlugin.get().getActivationRegistry().getSnapshot());
+    }
+
+    public ActivationContext(
+        @Nonnull World world,
+        @Nonnull Store<ChunkStore> store,
+        @Nonnull WorldChunk chunk,
+        int blockX,
+        int blockY,
+        int blockZ,
+        @Nonnull BlockType blockType,
+        @Nonnull List<int[]> sources
+    ) {
+        this(world, store, chunk, blockX, blockY, blockZ, BlockType.getAssetMap().getIndex(blockType.getId()), blockType, sources);
+    }
+}
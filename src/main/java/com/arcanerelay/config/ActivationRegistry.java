@@ -1,26 +1,45 @@
 package com.arcanerelay.config;
 
+import com.arcanerelay.config.types.ChainActivation;
 import com.hypixel.hytale.assetstore.AssetMap;
 import com.hypixel.hytale.assetstore.AssetRegistry;
 import com.hypixel.hytale.assetstore.AssetStore;
 import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.asset.HytaleAssetStore;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.asset.type.soundevent.config.SoundEvent;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public final class ActivationRegistry {
 
     public static final String DEFAULT_ACTIVATION_ID = "use_block";
 
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
     private final ActivationBindingRegistry bindingRegistry;
-    private AssetMap<String, Activation> assetMap;
-    private boolean assetsCached;
+    private final Object reloadLock = new Object();
+    private volatile ActivationSnapshot snapshot = ActivationSnapshot.EMPTY;
+    private volatile boolean assetsCached;
+    @Nullable
+    private volatile Path bindingIndexCacheFile;
 
     public ActivationRegistry(@Nonnull ActivationBindingRegistry bindingRegistry) {
         this.bindingRegistry = bindingRegistry;
+        bindingRegistry.setChangeListener(this::onBindingsRegistered);
     }
 
     @SuppressWarnings("unchecked")
@@ -38,13 +57,124 @@ public final class ActivationRegistry {
         );
     }
 
+    /** File the precomputed {@link BindingIndex} is cached in between boots; null disables the cache. */
+    public void setBindingIndexCacheFile(@Nullable Path bindingIndexCacheFile) {
+        this.bindingIndexCacheFile = bindingIndexCacheFile;
+    }
+
+    /** Compiles and publishes the first snapshot. Called once from boot. */
     public void onAssetsLoaded() {
+        reload();
+    }
+
+    /**
+     * Compiles a new snapshot from the currently loaded activation and binding assets and publishes it
+     * with a single volatile write. Waves that already hold the previous snapshot finish with it.
+     */
+    public void reload() {
+        synchronized (reloadLock) {
+            ActivationSnapshot next = compile();
+            bindingRegistry.publish(next.getBindings());
+            this.snapshot = next;
+            this.assetsCached = true;
+        }
+    }
+
+    /** Runs {@link #reload()} off the calling thread, e.g. from an asset store update. */
+    @Nonnull
+    public CompletableFuture<Void> reloadAsync() {
+        return CompletableFuture.runAsync(this::reload)
+            .exceptionally(t -> {
+                LOGGER.atSevere().withCause(t).log("Failed to reload activations; keeping previous snapshot");
+                return null;
+            });
+    }
+
+    /** Bindings registered from code after boot would otherwise wait for an unrelated asset reload. */
+    private void onBindingsRegistered() {
+        if (assetsCached) reloadAsync();
+    }
+
+    @Nonnull
+    private ActivationSnapshot compile() {
+        Map<String, Activation> activations = Map.of();
         AssetStore<String, Activation, ? extends AssetMap<String, Activation>> store =
             AssetRegistry.getAssetStore(Activation.class);
-        if (store != null) {
-            this.assetMap = store.getAssetMap();
+        if (store != null && store.getAssetMap() != null) {
+            activations = store.getAssetMap().getAssetMap();
+        }
+
+        Map<String, Activation> accepted = new HashMap<>(activations);
+        rejectCycles(accepted);
+
+        Map<ChainActivation, Activation[]> chainMembers = new IdentityHashMap<>();
+        for (Activation activation : List.copyOf(accepted.values())) {
+            if (!(activation instanceof ChainActivation chain)) continue;
+
+            try {
+                chainMembers.put(chain, chain.resolve(accepted));
+            } catch (IllegalStateException e) {
+                LOGGER.atSevere().log("Rejecting activation " + chain.getId() + ": " + e.getMessage());
+                accepted.remove(chain.getId());
+            }
         }
-        this.assetsCached = true;
+        ActivationBindingRegistry.Bindings bindings = bindingRegistry.compile();
+        BindingIndex bindingIndex = BindingIndex.loadOrBuild(bindings, accepted, bindingIndexCacheFile);
+        return new ActivationSnapshot(accepted, bindings, bindingIndex, chainMembers);
+    }
+
+    /**
+     * Removes every activation that can reach itself through the activations it runs (Chain members, Area
+     * children, in any mix), since running one would recurse without end.
+     */
+    private static void rejectCycles(@Nonnull Map<String, Activation> activations) {
+        Map<String, Boolean> visited = new HashMap<>(); // false while on the current path, true once finished
+        Set<String> rejected = new LinkedHashSet<>();
+        for (String id : activations.keySet()) {
+            findCycles(id, activations, visited, new ArrayDeque<>(), rejected);
+        }
+        for (String id : rejected) {
+            activations.remove(id);
+        }
+    }
+
+    private static void findCycles(
+        @Nonnull String id,
+        @Nonnull Map<String, Activation> activations,
+        @Nonnull Map<String, Boolean> visited,
+        @Nonnull Deque<String> path,
+        @Nonnull Set<String> rejected
+    ) {
+        Activation activation = activations.get(id);
+        if (activation == null) return;
+
+        Boolean finished = visited.get(id);
+        if (finished != null) {
+            if (!finished) {
+                List<String> cycle = new ArrayList<>(path);
+                cycle = cycle.subList(cycle.indexOf(id), cycle.size());
+                LOGGER.atSevere().log("Rejecting activations " + cycle + ": activation cycle "
+                    + String.join(" -> ", cycle) + " -> " + id);
+                rejected.addAll(cycle);
+            }
+            return;
+        }
+
+        visited.put(id, false);
+        path.addLast(id);
+        for (String referenced : activation.getReferencedActivationIds()) {
+            if (referenced != null && !referenced.isEmpty()) {
+                findCycles(referenced, activations, visited, path, rejected);
+            }
+        }
+        path.removeLast();
+        visited.put(id, true);
+    }
+
+    /** The currently published snapshot. Hold on to it for the duration of a wave for a consistent view. */
+    @Nonnull
+    public ActivationSnapshot getSnapshot() {
+        return snapshot;
     }
 
     @Nonnull
@@ -54,24 +184,17 @@ public final class ActivationRegistry {
 
     @Nullable
     public Activation getActivation(@Nonnull String activationId) {
-        if (DEFAULT_ACTIVATION_ID.equals(activationId)) {
-            return null;
-        }
-        if (assetMap == null) {
-            return null;
-        }
-        return assetMap.getAsset(activationId);
+        return snapshot.getActivation(activationId);
     }
 
     @Nonnull
     public String getActivationId(@Nonnull String blockTypeKey) {
-        return bindingRegistry.getActivationId(blockTypeKey);
+        return snapshot.getActivationId(blockTypeKey);
     }
 
     @Nullable
     public Activation getActivationForBlock(@Nonnull String blockTypeKey) {
-        String id = bindingRegistry.getActivationId(blockTypeKey);
-        return getActivation(id);
+        return snapshot.getActivationForBlock(blockTypeKey);
     }
 
     public boolean isAssetsCached() {
@@ -0,0 +1,90 @@
+package com.arcanerelay.config;
+
+import com.arcanerelay.config.types.ChainActivation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of the loaded activations and bindings.
+ * A new snapshot is compiled on every asset (re)load and published by {@link ActivationRegistry} in a single
+ * volatile write, so a wave that holds on to one sees the same activations and bindings for its whole run.
+ */
+public final class ActivationSnapshot {
+
+    public static final ActivationSnapshot EMPTY =
+        new ActivationSnapshot(Map.of(), ActivationBindingRegistry.Bindings.EMPTY, BindingIndex.EMPTY, Map.of());
+
+    private final Map<String, Activation> activations;
+    private final ActivationBindingRegistry.Bindings bindings;
+    private final BindingIndex bindingIndex;
+    /** Activation per block type index, resolved from {@link #bindingIndex}; null entries run no activation. */
+    private final Activation[] activationsByBlockId;
+    private final Map<ChainActivation, Activation[]> chainMembers;
+
+    ActivationSnapshot(
+        @Nonnull Map<String, Activation> activations,
+        @Nonnull ActivationBindingRegistry.Bindings bindings,
+        @Nonnull BindingIndex bindingIndex,
+        @Nonnull Map<ChainActivation, Activation[]> chainMembers
+    ) {
+        this.activations = Map.copyOf(activations);
+        this.bindings = bindings;
+        this.bindingIndex = bindingIndex;
+        this.chainMembers = new IdentityHashMap<>(chainMembers);
+
+        this.activationsByBlockId = new Activation[bindingIndex.size()];
+        for (int i = 0; i < activationsByBlockId.length; i++) {
+            String id = bindingIndex.getActivationId(i);
+            activationsByBlockId[i] = id != null ? getActivation(id) : null;
+        }
+    }
+
+    /** Resolved members of a chain in this snapshot, or null if the chain was rejected or is not part of it. */
+    @Nullable
+    public Activation[] getChainMembers(@Nonnull ChainActivation chain) {
+        return chainMembers.get(chain);
+    }
+
+    @Nonnull
+    public Map<String, Activation> getActivations() {
+        return activations;
+    }
+
+    @Nonnull
+    public ActivationBindingRegistry.Bindings getBindings() {
+        return bindings;
+    }
+
+    @Nullable
+    public Activation getActivation(@Nonnull String activationId) {
+        if (ActivationRegistry.DEFAULT_ACTIVATION_ID.equals(activationId)) {
+            return null;
+        }
+        return activations.get(activationId);
+    }
+
+    @Nonnull
+    public String getActivationId(@Nonnull String blockTypeKey) {
+        return bindings.getActivationId(blockTypeKey);
+    }
+
+    @Nullable
+    public Activation getActivationForBlock(@Nonnull String blockTypeKey) {
+        return getActivation(bindings.getActivationId(blockTypeKey));
+    }
+
+    /**
+     * Resolves the activation for a block through the precomputed index, falling back to matching the
+     * bindings by key for block types added after the index was built.
+     */
+    @Nullable
+    public Activation getActivationForBlock(int blockId, @Nonnull String blockTypeKey) {
+        if (blockId >= 0 && blockId < activationsByBlockId.length && bindingIndex.getActivationId(blockId) != null) {
+            return activationsByBlockId[blockId];
+        }
+        return getActivationForBlock(blockTypeKey);
+    }
+}
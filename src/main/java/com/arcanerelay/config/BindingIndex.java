@@ -0,0 +1,212 @@
+package com.arcanerelay.config;
+
+import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed block type index to activation ID table, so resolving a block's activation is an array load
+ * instead of a walk over every binding pattern.
+ * The table is built in parallel over the {@link BlockType} asset map and cached on disk, keyed by a hash of the
+ * bindings, activation IDs and block type keys; a matching cache is reused on the next boot.
+ */
+public final class BindingIndex {
+
+    static final BindingIndex EMPTY = new BindingIndex(new String[0]);
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    private static final int CACHE_MAGIC = 0x41524249; // "ARBI"
+    private static final int CACHE_VERSION = 1;
+
+    /** Activation ID per block type index. */
+    private final String[] activationIds;
+
+    private BindingIndex(@Nonnull String[] activationIds) {
+        this.activationIds = activationIds;
+    }
+
+    /** Number of block type indices covered by this table. */
+    public int size() {
+        return activationIds.length;
+    }
+
+    /** Activation ID bound to the given block type index, or null if the index is outside the table. */
+    @Nullable
+    public String getActivationId(int blockId) {
+        return blockId >= 0 && blockId < activationIds.length ? activationIds[blockId] : null;
+    }
+
+    /**
+     * Loads the index from {@code cacheFile} when its hash matches the current assets, otherwise builds it and
+     * rewrites the cache. Bindings that cannot be hashed (code-only matchers) are never cached.
+     */
+    @Nonnull
+    static BindingIndex loadOrBuild(
+        @Nonnull ActivationBindingRegistry.Bindings bindings,
+        @Nonnull Map<String, Activation> activations,
+        @Nullable Path cacheFile
+    ) {
+        BlockTypeAssetMap<String, BlockType> blockTypeMap = BlockType.getAssetMap();
+        if (blockTypeMap == null) return EMPTY;
+
+        String[] blockKeys = blockTypeMap.getAssetMap().keySet().toArray(String[]::new);
+        String hash = cacheFile != null ? hash(bindings, activations, blockKeys) : null;
+
+        if (hash != null) {
+            BindingIndex cached = read(cacheFile, hash, blockTypeMap);
+            if (cached != null) {
+                LOGGER.atInfo().log("Loaded binding index for " + blockKeys.length + " block types from cache");
+                return cached;
+            }
+        }
+
+        String[] ids = new String[blockKeys.length];
+        IntStream.range(0, blockKeys.length).parallel()
+            .forEach(i -> ids[i] = bindings.getActivationId(blockKeys[i]));
+
+        BindingIndex index = new BindingIndex(toTable(blockTypeMap, blockKeys, ids));
+        if (hash != null) {
+            write(cacheFile, hash, bindings.getDefaultActivationId(), blockKeys, ids);
+        }
+        return index;
+    }
+
+    @Nonnull
+    private static String[] toTable(
+        @Nonnull BlockTypeAssetMap<String, BlockType> blockTypeMap,
+        @Nonnull String[] blockKeys,
+        @Nonnull String[] ids
+    ) {
+        int[] indices = new int[blockKeys.length];
+        int max = -1;
+        for (int i = 0; i < blockKeys.length; i++) {
+            indices[i] = blockTypeMap.getIndex(blockKeys[i]);
+            max = Math.max(max, indices[i]);
+        }
+
+        String[] table = new String[max + 1];
+        for (int i = 0; i < blockKeys.length; i++) {
+            if (indices[i] >= 0) {
+                table[indices[i]] = ids[i];
+            }
+        }
+        return table;
+    }
+
+    @Nullable
+    private static String hash(
+        @Nonnull ActivationBindingRegistry.Bindings bindings,
+        @Nonnull Map<String, Activation> activations,
+        @Nonnull String[] blockKeys
+    ) {
+        String described = bindings.describe();
+        if (described == null) return null;
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(described.getBytes(StandardCharsets.UTF_8));
+
+            String[] activationIds = activations.keySet().toArray(String[]::new);
+            Arrays.sort(activationIds);
+            for (String id : activationIds) {
+                digest.update(id.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+
+            String[] sortedKeys = blockKeys.clone();
+            Arrays.sort(sortedKeys);
+            for (String key : sortedKeys) {
+                digest.update(key.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /** Only non-default entries are written; everything else falls back to the default activation. */
+    private static void write(
+        @Nonnull Path cacheFile,
+        @Nonnull String hash,
+        @Nonnull String defaultActivationId,
+        @Nonnull String[] blockKeys,
+        @Nonnull String[] ids
+    ) {
+        int count = 0;
+        for (String id : ids) {
+            if (!defaultActivationId.equals(id)) count++;
+        }
+
+        try {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(CACHE_VERSION);
+                out.writeUTF(hash);
+                out.writeUTF(defaultActivationId);
+                out.writeInt(count);
+                for (int i = 0; i < blockKeys.length; i++) {
+                    if (defaultActivationId.equals(ids[i])) continue;
+                    out.writeUTF(blockKeys[i]);
+                    out.writeUTF(ids[i]);
+                }
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Failed to write binding index cache " + cacheFile);
+        }
+    }
+
+    @Nullable
+    private static BindingIndex read(
+        @Nonnull Path cacheFile,
+        @Nonnull String hash,
+        @Nonnull BlockTypeAssetMap<String, BlockType> blockTypeMap
+    ) {
+        if (!Files.isRegularFile(cacheFile)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION) return null;
+            if (!hash.equals(in.readUTF())) return null;
+
+            String defaultActivationId = in.readUTF();
+            int count = in.readInt();
+            Map<String, String> bound = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                bound.put(key, in.readUTF().intern());
+            }
+
+            String[] blockKeys = blockTypeMap.getAssetMap().keySet().toArray(String[]::new);
+            String[] ids = new String[blockKeys.length];
+            for (int i = 0; i < blockKeys.length; i++) {
+                ids[i] = bound.getOrDefault(blockKeys[i], defaultActivationId);
+            }
+            return new BindingIndex(toTable(blockTypeMap, blockKeys, ids));
+        } catch (IOException e) {
+            LOGGER.atWarning().withCause(e).log("Ignoring unreadable binding index cache " + cacheFile);
+            return null;
+        }
+    }
+}
@@ -5,11 +5,11 @@ import com.arcanerelay.components.ArcaneTriggerBlock;
 import com.arcanerelay.config.Activation;
 import com.arcanerelay.config.ActivationContext;
 import com.arcanerelay.core.activation.ActivationExecutor;
+import com.arcanerelay.core.activation.WaveBuffer;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.codec.codecs.map.MapCodec;
-import com.hypixel.hytale.math.vector.Vector3i;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -124,7 +124,7 @@ public class ArcaneDischargeActivation extends Activation {
             trigger.clearCharges();
         }
 
-        ctx.world().setBlockInteractionState(new Vector3i(ctx.blockX(), ctx.blockY(), ctx.blockZ()), ctx.blockType(), newState);
+        WaveBuffer.setBlockInteractionState(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), ctx.blockType(), newState);
 
         var newBlockType = ctx.blockType().getBlockForState(newState);
         if (newBlockType != null) {
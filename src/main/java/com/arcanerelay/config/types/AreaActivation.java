@@ -0,0 +1,262 @@
+package com.arcanerelay.config.types;
+
+import com.arcanerelay.ArcaneRelayPlugin;
+import com.arcanerelay.api.BlockTypeMatcher;
+import com.arcanerelay.config.Activation;
+import com.arcanerelay.config.ActivationBindingRegistry;
+import com.arcanerelay.config.ActivationContext;
+import com.arcanerelay.core.activation.ActivationExecutor;
+import com.arcanerelay.core.activation.WaveBuffer;
+import com.arcanerelay.util.BlockTypeTable;
+import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.codec.codecs.map.MapCodec;
+import com.hypixel.hytale.math.codec.Vector3iArrayCodec;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AreaActivation extends Activation {
+    public static final BuilderCodec<AreaActivation> CODEC = BuilderCodec.builder(
+            AreaActivation.class,
+            AreaActivation::new,
+            Activation.ABSTRACT_CODEC
+        )
+        .documentation("Applies an activation or a state map to every matching block in a box around this block.")
+        .appendInherited(
+            new KeyedCodec<>("Min", new Vector3iArrayCodec()),
+            (a, v) -> a.min = v,
+            a -> a.min,
+            (a, p) -> a.min = p.min
+        )
+        .documentation("Lower corner of the box, relative to this block (inclusive, default: [0, 0, 0]).")
+        .add()
+        .appendInherited(
+            new KeyedCodec<>("Max", new Vector3iArrayCodec()),
+            (a, v) -> a.max = v,
+            a -> a.max,
+            (a, p) -> a.max = p.max
+        )
+        .documentation("Upper corner of the box, relative to this block (inclusive, default: [0, 0, 0]).")
+        .add()
+        .appendInherited(
+            new KeyedCodec<>("Pattern", Codec.STRING),
+            (a, s) -> a.setPattern(s),
+            a -> a.pattern,
+            (a, p) -> a.setPattern(p.pattern)
+        )
+        .documentation("Which blocks in the box are affected, in binding pattern syntax (e.g. contains:Lamp). Default: every non-empty block.")
+        .add()
+        .appendInherited(
+            new KeyedCodec<>("Activation", Codec.STRING),
+            (a, s) -> a.activationId = s,
+            a -> a.activationId,
+            (a, p) -> a.activationId = p.activationId
+        )
+        .documentation("Activation ID run on every matching block, as one batch. Ignored if States is set.")
+        .add()
+        .<Map<String, String>>appendInherited(
+            new KeyedCodec<>("States", new MapCodec<>(Codec.STRING, HashMap::new)),
+            (a, m) -> a.setStates(m),
+            a -> a.states,
+            (a, p) -> a.setStates(p.states)
+        )
+        .documentation("State map applied directly to every matching block: current state -> new state ('default' matches blocks without a state).")
+        .add()
+        .appendInherited(
+            new KeyedCodec<>("MaxBlocks", Codec.INTEGER),
+            (a, n) -> a.maxBlocks = n,
+            a -> a.maxBlocks,
+            (a, p) -> a.maxBlocks = p.maxBlocks
+        )
+        .documentation("Largest box volume this activation will scan (default: 32768).")
+        .add()
+        .build();
+
+    private Vector3i min = new Vector3i(0, 0, 0);
+    private Vector3i max = new Vector3i(0, 0, 0);
+    @Nullable
+    private String pattern;
+    @Nullable
+    private String activationId;
+    @Nullable
+    private Map<String, String> states;
+    private int maxBlocks = 32768;
+    @Nullable
+    private BlockTypeMatcher matcher;
+    /** Per block type: whether it is affected, and the state it is set to when States is used. */
+    private volatile BlockTypeTable<Target> targets = new BlockTypeTable<>(this::computeTarget);
+
+    public AreaActivation() {
+    }
+
+    /** {@code newState} is null when States is not set or has no entry for the block's current state. */
+    private record Target(boolean matches, @Nullable String newState) {
+        static final Target NONE = new Target(false, null);
+    }
+
+    public Vector3i getMin() {
+        return min;
+    }
+
+    public void setMin(Vector3i min) {
+        this.min = min;
+    }
+
+    public Vector3i getMax() {
+        return max;
+    }
+
+    public void setMax(Vector3i max) {
+        this.max = max;
+    }
+
+    @Nullable
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(@Nullable String pattern) {
+        this.pattern = pattern;
+        this.matcher = pattern != null && !pattern.isBlank() ? ActivationBindingRegistry.matcherFromPattern(pattern) : null;
+        this.targets = new BlockTypeTable<>(this::computeTarget);
+    }
+
+    @Nullable
+    public String getActivationId() {
+        return activationId;
+    }
+
+    public void setActivationId(@Nullable String activationId) {
+        this.activationId = activationId;
+    }
+
+    @Nullable
+    public Map<String, String> getStates() {
+        return states;
+    }
+
+    public void setStates(@Nullable Map<String, String> states) {
+        this.states = states;
+        this.targets = new BlockTypeTable<>(this::computeTarget);
+    }
+
+    @Nonnull
+    @Override
+    public String[] getReferencedActivationIds() {
+        if ((states != null && !states.isEmpty()) || activationId == null || activationId.isEmpty()) {
+            return new String[0];
+        }
+        return new String[]{activationId};
+    }
+
+    public int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    public void setMaxBlocks(int maxBlocks) {
+        this.maxBlocks = maxBlocks;
+    }
+
+    @Nonnull
+    private Target computeTarget(@Nonnull BlockType blockType) {
+        String key = blockType.getId();
+        if (key == null) return Target.NONE;
+        if (matcher != null && !matcher.matches(key)) return Target.NONE;
+
+        Map<String, String> states = this.states;
+        if (states == null || states.isEmpty()) return new Target(true, null);
+
+        String currentState = blockType.getStateForBlock(blockType);
+        String newState = states.get(currentState != null ? currentState : "default");
+        if (newState == null || newState.equals(currentState) || blockType.getBlockForState(newState) == null) {
+            return Target.NONE;
+        }
+        return new Target(true, newState);
+    }
+
+    @Override
+    public void execute(@Nonnull ActivationContext ctx) {
+        World world = ctx.world();
+        int minX = ctx.blockX() + Math.min(min.x, max.x), maxX = ctx.blockX() + Math.max(min.x, max.x);
+        int minY = ctx.blockY() + Math.min(min.y, max.y), maxY = ctx.blockY() + Math.max(min.y, max.y);
+        int minZ = ctx.blockZ() + Math.min(min.z, max.z), maxZ = ctx.blockZ() + Math.max(min.z, max.z);
+        // Only the part of the box inside the world is walked (and counted against MaxBlocks).
+        minY = Math.max(minY, 0);
+        maxY = Math.min(maxY, ChunkUtil.HEIGHT - 1);
+        if (minY > maxY) return;
+
+        long volume = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        if (volume > maxBlocks) {
+            ArcaneRelayPlugin.get().getLogger().atWarning().log("Area activation " + getId() + ": box of " + volume
+                + " blocks exceeds MaxBlocks " + maxBlocks);
+            return;
+        }
+
+        boolean useStates = states != null && !states.isEmpty();
+        Activation child = useStates ? null : resolveChild(ctx);
+        if (!useStates && child == null) return;
+
+        List<ActivationContext> childBatch = new ArrayList<>();
+        List<int[]> sources = List.<int[]>of(new int[]{ctx.blockX(), ctx.blockY(), ctx.blockZ()});
+        BlockTypeAssetMap<String, BlockType> blockTypeMap = BlockType.getAssetMap();
+        BlockTypeTable<Target> targets = this.targets;
+
+        // Walk the box one chunk column at a time so each chunk is looked up once.
+        for (int chunkX = minX >> 5; chunkX <= maxX >> 5; chunkX++) {
+            for (int chunkZ = minZ >> 5; chunkZ <= maxZ >> 5; chunkZ++) {
+                int fromX = Math.max(minX, chunkX << 5), toX = Math.min(maxX, (chunkX << 5) + 31);
+                int fromZ = Math.max(minZ, chunkZ << 5), toZ = Math.min(maxZ, (chunkZ << 5) + 31);
+
+                WorldChunk chunk = world.getChunk(ChunkUtil.indexChunkFromBlock(fromX, fromZ));
+                if (chunk == null) continue;
+
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = fromZ; z <= toZ; z++) {
+                        for (int x = fromX; x <= toX; x++) {
+                            int blockId = chunk.getBlock(x, y, z);
+                            if (blockId == 0) continue;
+                            if (x == ctx.blockX() && y == ctx.blockY() && z == ctx.blockZ()) continue;
+
+                            BlockType blockType = blockTypeMap.getAsset(blockId);
+                            if (blockType == null) continue;
+
+                            Target target = targets.get(blockId, blockType);
+                            if (!target.matches() || chunk.getFiller(x, y, z) != 0) continue;
+
+                            if (useStates) {
+                                WaveBuffer.setBlockInteractionState(world, x, y, z, blockType, target.newState());
+                            } else {
+                                childBatch.add(new ActivationContext(world, ctx.store(), chunk, x, y, z, blockId, blockType, sources, ctx.snapshot()));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        if (child != null) {
+            ActivationExecutor.runBatch(child, childBatch);
+        }
+        ActivationExecutor.playEffects(world, ctx.blockX(), ctx.blockY(), ctx.blockZ(), getEffects());
+    }
+
+    /** The child from the wave's snapshot; cycles through it were rejected when the snapshot was compiled. */
+    @Nullable
+    private Activation resolveChild(@Nonnull ActivationContext ctx) {
+        if (activationId == null || activationId.isEmpty()) return null;
+
+        return ctx.snapshot().getActivation(activationId);
+    }
+}
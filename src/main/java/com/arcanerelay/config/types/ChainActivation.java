@@ -3,12 +3,18 @@ package com.arcanerelay.config.types;
 import com.arcanerelay.ArcaneRelayPlugin;
 import com.arcanerelay.config.Activation;
 import com.arcanerelay.config.ActivationContext;
+import com.arcanerelay.core.activation.ActivationExecutor;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
 
 public class ChainActivation extends Activation {
     public static final BuilderCodec<ChainActivation> CODEC =
@@ -24,7 +30,7 @@ public class ChainActivation extends Activation {
             a -> a.activationIds,
             (a, p) -> a.activationIds = p.activationIds
         )
-        .documentation("List of activation asset IDs to run in order.")
+        .documentation("List of activation asset IDs to run in order. Nested chains are flattened unless they have a Cooldown or Debounce; cycles are rejected.")
         .add()
         .build();
 
@@ -41,15 +47,68 @@ public class ChainActivation extends Activation {
         this.activationIds = activationIds != null ? activationIds : new String[0];
     }
 
+    @Nonnull
     @Override
-    public void execute(@Nonnull ActivationContext ctx) {
-        var registry = ArcaneRelayPlugin.get().getActivationRegistry();
-        for (String id : getActivationIds()) {
+    public String[] getReferencedActivationIds() {
+        return getActivationIds();
+    }
+
+    /**
+     * Resolves the listed activation IDs to direct references, flattening nested chains into one array.
+     * A nested chain with its own Cooldown or Debounce stays a single member, so its rate limit still applies.
+     * The result is kept by the {@link com.arcanerelay.config.ActivationSnapshot} it was compiled for.
+     *
+     * @param activations all loaded activations by ID
+     * @return the leaf activations in execution order
+     * @throws IllegalStateException if this chain reaches itself through its members
+     */
+    @Nonnull
+    public Activation[] resolve(@Nonnull Map<String, Activation> activations) {
+        List<Activation> out = new ArrayList<>();
+        flatten(this, activations, new ArrayDeque<>(), out);
+        return out.toArray(Activation[]::new);
+    }
+
+    private static void flatten(
+        @Nonnull ChainActivation chain,
+        @Nonnull Map<String, Activation> activations,
+        @Nonnull Deque<String> path,
+        @Nonnull List<Activation> out
+    ) {
+        if (path.contains(chain.getId())) {
+            throw new IllegalStateException("Chain activation cycle: " + String.join(" -> ", path) + " -> " + chain.getId());
+        }
+
+        path.addLast(chain.getId());
+        for (String id : chain.getActivationIds()) {
             if (id == null || id.isEmpty()) continue;
-            Activation activation = registry.getActivation(id);
-            if (activation != null) {
-                activation.execute(ctx);
+
+            Activation activation = activations.get(id);
+            if (activation == null) {
+                ArcaneRelayPlugin.get().getLogger().atWarning().log("Chain activation " + chain.getId() + ": unknown activation " + id);
+                continue;
+            }
+
+            if (activation instanceof ChainActivation nested) {
+                if (nested.isRateLimited()) {
+                    // Kept as one member so its rate limit applies, but still walked so cycles through it are rejected.
+                    flatten(nested, activations, path, new ArrayList<>());
+                    out.add(nested);
+                } else {
+                    flatten(nested, activations, path, out);
+                }
+            } else {
+                out.add(activation);
             }
         }
+        path.removeLast();
+    }
+
+    @Override
+    public void execute(@Nonnull ActivationContext ctx) {
+        Activation[] members = ctx.snapshot().getChainMembers(this);
+        if (members == null || members.length == 0) return;
+
+        ActivationExecutor.executeAll(members, ctx);
     }
 }
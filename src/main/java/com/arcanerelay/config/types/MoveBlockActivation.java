@@ -1,11 +1,16 @@
 package com.arcanerelay.config.types;
 
 import com.arcanerelay.ArcaneRelayPlugin;
+import com.arcanerelay.api.BlockTypeMatcher;
 import com.arcanerelay.components.ArcaneMoveBlock;
 import com.arcanerelay.config.Activation;
+import com.arcanerelay.config.ActivationBindingRegistry;
 import com.arcanerelay.config.ActivationContext;
 import com.arcanerelay.core.activation.ActivationExecutor;
+import com.arcanerelay.core.blockmovement.PushPlan;
 import com.arcanerelay.state.ArcaneMoveState;
+import com.arcanerelay.util.BlockTypeTable;
+import com.arcanerelay.util.BlockUtil;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -36,24 +41,35 @@ import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.util.TargetUtil;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import it.unimi.dsi.fastutil.longs.LongSet;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 import java.util.Vector;
 
 public class MoveBlockActivation extends Activation {
     private int range = 1;
+    private int distance = 1;
     private int upAmount = 1;
     private boolean isWall = false;
+    private boolean structure = false;
+    @Nullable
+    private String structurePattern;
+    private int maxBlocks = 512;
+    @Nullable
+    private BlockTypeMatcher structureMatcher;
+    /** Per block type: whether it belongs to a structure when StructurePattern is set. */
+    private volatile BlockTypeTable<Boolean> structureBlocks = new BlockTypeTable<>(this::computeStructureBlock);
 
     private static final double KNOCKBACK_MAX_SPEED = 4.5f;
     private static final float KNOCKBACK_DURATION = 0.2f;
+    /** Default velocity config shared by every push knockback; never modified. */
+    private static final VelocityConfig KNOCKBACK_VELOCITY_CONFIG = new VelocityConfig();
 
     public static final BuilderCodec<MoveBlockActivation> CODEC = BuilderCodec.builder(
         MoveBlockActivation.class,
@@ -67,6 +83,13 @@ public class MoveBlockActivation extends Activation {
             (a, p) -> a.range = p.range)
         .documentation("Maximum number of blocks to push in a chain (default: 1).")
         .add()
+        .appendInherited(
+            new KeyedCodec<>("Distance", Codec.INTEGER),
+            (a, d) -> a.distance = d,
+            a -> a.distance,
+            (a, p) -> a.distance = p.distance)
+        .documentation("Number of cells the chain moves per activation; all of them must be empty (default: 1).")
+        .add()
         .appendInherited(
             new KeyedCodec<>("IsWall", Codec.BOOLEAN),
             (a, w) -> a.isWall = w,
@@ -74,6 +97,27 @@ public class MoveBlockActivation extends Activation {
             (a, p) -> a.isWall = p.isWall)
         .documentation("Whether the block is a wall (default: false).")
         .add()
+        .appendInherited(
+            new KeyedCodec<>("Structure", Codec.BOOLEAN),
+            (a, s) -> a.structure = s,
+            a -> a.structure,
+            (a, p) -> a.structure = p.structure)
+        .documentation("Moves the whole connected structure in front instead of a straight chain (default: false).")
+        .add()
+        .appendInherited(
+            new KeyedCodec<>("StructurePattern", Codec.STRING),
+            (a, s) -> a.setStructurePattern(s),
+            a -> a.structurePattern,
+            (a, p) -> a.setStructurePattern(p.structurePattern))
+        .documentation("Which blocks belong to the structure, in binding pattern syntax. Default: blocks of the same type as the one in front.")
+        .add()
+        .appendInherited(
+            new KeyedCodec<>("MaxBlocks", Codec.INTEGER),
+            (a, n) -> a.maxBlocks = n,
+            a -> a.maxBlocks,
+            (a, p) -> a.maxBlocks = p.maxBlocks)
+        .documentation("Largest structure that can be moved; a bigger one blocks the push (default: 512).")
+        .add()
         .build();
 
     public int getRange() {
@@ -84,177 +128,465 @@ public class MoveBlockActivation extends Activation {
         this.range = range;
     }
 
-    private static Vector3d getForwardFromBlockType(@Nonnull BlockType blockType, boolean isWall) {
-        return switch (blockType.getVariantRotation()) {
-            case UpDown -> new Vector3d(0, 1, 0);
-            default -> isWall ? new Vector3d(0, -1, 0) : new Vector3d(0, 0, -1);
-        };
+    public int getDistance() {
+        return distance;
     }
 
-    private static Vector3d getUpFromBlockType(@Nonnull BlockType blockType, boolean isWall) {
-        return switch (blockType.getVariantRotation()) {
-            case UpDown -> new Vector3d(0, 1, 0);
-            default -> isWall ? new Vector3d(0, 0, 1) : new Vector3d(0, 1, 0);
-        };
+    public void setDistance(int distance) {
+        this.distance = distance;
     }
 
-    private static boolean isPushable(@Nullable BlockType blockType, int blockId) {
-        if (blockId == 0)
-            return false;
-        if (blockType == null)
-            return false;
-        return blockType.getMaterial() != BlockMaterial.Empty;
+    public boolean isStructure() {
+        return structure;
     }
 
-    private static boolean isEmpty(@Nullable BlockType blockType, int blockId) {
-        if (blockId == 0)
-            return true;
-        if (blockType == null)
-            return true;
-        return blockType.getMaterial() == BlockMaterial.Empty;
+    public void setStructure(boolean structure) {
+        this.structure = structure;
     }
 
-    private boolean isWallPusherVariant(@Nonnull ActivationContext ctx) {
-        BlockType blockType = ctx.blockType();
-        if (isWall)
-            return true;
-        if (blockType.getVariantRotation() == VariantRotation.Wall)
-            return true;
+    @Nullable
+    public String getStructurePattern() {
+        return structurePattern;
+    }
+
+    public void setStructurePattern(@Nullable String structurePattern) {
+        this.structurePattern = structurePattern;
+        this.structureMatcher = structurePattern != null && !structurePattern.isBlank()
+            ? ActivationBindingRegistry.matcherFromPattern(structurePattern) : null;
+        this.structureBlocks = new BlockTypeTable<>(this::computeStructureBlock);
+    }
+
+    public int getMaxBlocks() {
+        return maxBlocks;
+    }
+
+    public void setMaxBlocks(int maxBlocks) {
+        this.maxBlocks = maxBlocks;
+    }
+
+    /** How a pusher block type is mounted, which decides its local forward and up directions. */
+    private enum PusherKind {
+        FLOOR(0, 0, -1, 0, 1, 0),
+        WALL(0, -1, 0, 0, 0, 1),
+        UP_DOWN(0, 1, 0, 0, 1, 0);
+
+        private final Vector3d localForward;
+        private final Vector3d localUp;
+
+        PusherKind(int fx, int fy, int fz, int ux, int uy, int uz) {
+            this.localForward = new Vector3d(fx, fy, fz);
+            this.localUp = new Vector3d(ux, uy, uz);
+        }
+    }
+
+    private static final int ROTATION_COUNT = 64;
+    /** Global {forwardX, forwardY, forwardZ, upX, upY, upZ} per [pusher kind][rotation index]. */
+    private static final int[][][] ORIENTATIONS = new int[PusherKind.values().length][ROTATION_COUNT][];
+
+    static {
+        for (PusherKind kind : PusherKind.values()) {
+            for (int rotationIndex = 0; rotationIndex < ROTATION_COUNT; rotationIndex++) {
+                ORIENTATIONS[kind.ordinal()][rotationIndex] = computeOrientation(kind, rotationIndex);
+            }
+        }
+    }
+
+    /** Pusher kind per block type; depends on {@link #isWall}, so it is per activation. */
+    private final BlockTypeTable<PusherKind> pusherKinds = new BlockTypeTable<>(this::computePusherKind);
+
+    @Nonnull
+    private PusherKind computePusherKind(@Nonnull BlockType blockType) {
+        if (blockType.getVariantRotation() == VariantRotation.UpDown)
+            return PusherKind.UP_DOWN;
+        if (isWall || blockType.getVariantRotation() == VariantRotation.Wall)
+            return PusherKind.WALL;
         String id = blockType.getId();
-        return id != null && id.toLowerCase().contains("wall");
-    }
-
-    private Vector3i getGlobalForwardVector(ActivationContext ctx, Vector3i pusherPosition) {
-        boolean isWallPusher = isWallPusherVariant(ctx);
-        BlockType pusherBlockType = ctx.blockType();
-        WorldChunk pusherChunk = ctx.chunk();
-        int pusherRotationIndex = pusherChunk.getRotationIndex(pusherPosition.x, pusherPosition.y, pusherPosition.z);
-        RotationTuple pusherRotationTuple = RotationTuple.get(pusherRotationIndex);
-        Vector3d localForward = getForwardFromBlockType(pusherBlockType, isWallPusher);
-        Vector3d globalForwardDouble = pusherRotationTuple.rotate(localForward.clone());
-        return new Vector3i(
-            (int) Math.round(globalForwardDouble.getX()),
-            (int) Math.round(globalForwardDouble.getY()),
-            (int) Math.round(globalForwardDouble.getZ())
-        );
-    }
-
-    private Vector3i getGlobalUpVector(ActivationContext ctx, Vector3i pusherPosition) {
-        boolean isWallPusher = isWallPusherVariant(ctx);
-        BlockType pusherBlockType = ctx.blockType();
-        WorldChunk pusherChunk = ctx.chunk();
-        int pusherRotationIndex = pusherChunk.getRotationIndex(pusherPosition.x, pusherPosition.y, pusherPosition.z);
-        Vector3d localUp = getUpFromBlockType(pusherBlockType, isWallPusher);
-        RotationTuple upRotationTuple = RotationTuple.get(pusherRotationIndex);
-        Vector3d upDirection = upRotationTuple.rotate(localUp.clone());
-        return new Vector3i(
-            (int) Math.round(upDirection.getX()),
-            (int) Math.round(upDirection.getY()),
-            (int) Math.round(upDirection.getZ())
-        );
+        return id != null && id.toLowerCase().contains("wall") ? PusherKind.WALL : PusherKind.FLOOR;
+    }
+
+    @Nonnull
+    private static int[] getOrientation(@Nonnull PusherKind kind, int rotationIndex) {
+        if (rotationIndex >= 0 && rotationIndex < ROTATION_COUNT)
+            return ORIENTATIONS[kind.ordinal()][rotationIndex];
+        return computeOrientation(kind, rotationIndex);
+    }
+
+    @Nonnull
+    private static int[] computeOrientation(@Nonnull PusherKind kind, int rotationIndex) {
+        RotationTuple rotation = RotationTuple.get(rotationIndex);
+        Vector3d forward = rotation.rotate(kind.localForward.clone());
+        Vector3d up = rotation.rotate(kind.localUp.clone());
+        return new int[]{
+            (int) Math.round(forward.getX()), (int) Math.round(forward.getY()), (int) Math.round(forward.getZ()),
+            (int) Math.round(up.getX()), (int) Math.round(up.getY()), (int) Math.round(up.getZ())
+        };
     }
 
     @Override
     public void execute(@Nonnull ActivationContext ctx) {
+        ArcaneMoveState arcaneMoveState = ctx.world().getChunkStore().getStore().getResource(ArcaneMoveState.getResourceType());
+        if (arcaneMoveState == null)
+            return;
+
+        push(ctx, arcaneMoveState);
+    }
+
+    @Override
+    public void executeBatch(@Nonnull List<ActivationContext> batch) {
+        if (batch.isEmpty())
+            return;
+
+        ArcaneMoveState arcaneMoveState = batch.getFirst().world().getChunkStore().getStore().getResource(ArcaneMoveState.getResourceType());
+        if (arcaneMoveState == null)
+            return;
+
+        for (ActivationContext ctx : batch) {
+            push(ctx, arcaneMoveState);
+        }
+    }
+
+    private void push(@Nonnull ActivationContext ctx, @Nonnull ArcaneMoveState arcaneMoveState) {
         World world = ctx.world();
         Vector3i pusherPosition = new Vector3i(ctx.blockX(), ctx.blockY(), ctx.blockZ());
+        long pusherKey = BlockUtil.pack(pusherPosition.x, pusherPosition.y, pusherPosition.z);
+        int rotationIndex = ctx.chunk().getRotationIndex(pusherPosition.x, pusherPosition.y, pusherPosition.z);
+        ChunkCursor cursor = new ChunkCursor(world);
 
-        Vector3i globalForward = getGlobalForwardVector(ctx, pusherPosition);
-        if (globalForward.length() == 0)
+        if (structure && pushStructure(ctx, arcaneMoveState, pusherKey, rotationIndex, cursor))
             return;
 
-        Vector3i scaledGlobalUpVector = getGlobalUpVector(ctx, pusherPosition).scale(this.upAmount);
-        if (scaledGlobalUpVector.length() == 0)
+        PushPlan plan = planPush(ctx, rotationIndex, cursor);
+        if (plan == null)
             return;
 
-        Vector3i frontPusherPosition = pusherPosition.clone();
-        int maxRange = Math.max(1, range);
+        Vector3i globalForward = new Vector3i(plan.forward()[0], plan.forward()[1], plan.forward()[2]);
+        Vector3i scaledGlobalUpVector = new Vector3i(plan.up()[0], plan.up()[1], plan.up()[2]);
+        int moveDistance = plan.distance();
+        Vector3i displacement = globalForward.clone().scale(moveDistance);
+        int chainLength = plan.chainLength();
+
+        Vector3i nextEmptyPosition = new Vector3i(plan.cellX(chainLength), plan.cellY(chainLength), plan.cellZ(chainLength));
+        // Entities ride along and effects play only once the chain is actually written, inside the block movement
+        // task; the move can still be dropped or rolled back. An empty chain queues no moves, so the executor runs
+        // this right away and entities in front of the pusher are still pushed.
+        boolean firstPush = arcaneMoveState.addPushFollowUp(pusherKey, () -> {
+            movePlayers(world, globalForward, displacement, moveDistance, scaledGlobalUpVector, pusherPosition, nextEmptyPosition, chainLength);
+            if (chainLength == 0)
+                return;
+            Vector3i destinationPosition = pusherPosition.clone().add(globalForward).add(scaledGlobalUpVector);
+            ActivationExecutor.playEffects(world, destinationPosition.x, destinationPosition.y, destinationPosition.z, getEffects());
+        });
+        if (!firstPush)
+            return;
 
-        int[] chainBlockIds               = new int[maxRange];
-        int[] chainRotations              = new int[maxRange];
-        int[] chainFillers                = new int[maxRange];
-        BlockType[] chainBlockTypes       = new BlockType[maxRange];
-        Holder<ChunkStore>[] chainHolders = new Holder[maxRange];
+        for (int j = chainLength - 1; j >= 0; j--) {
+            int x = plan.cellX(j);
+            int y = plan.cellY(j);
+            int z = plan.cellZ(j);
 
+            WorldChunk chunk = cursor.chunkAt(x, z);
+            if (chunk == null)
+                continue;
+
+            // The scan only reads block IDs; rotation, filler and block state are read here, for blocks that move.
+            int blockId = plan.blockIds()[j];
+            Holder<ChunkStore> stateHolder = chunk.getBlockComponentHolder(x, y, z);
+            arcaneMoveState.addMoveEntry(pusherKey, new Vector3i(x, y, z), displacement.clone(),
+                BlockType.getAssetMap().getAsset(blockId), blockId,
+                chunk.getRotationIndex(x, y, z), chunk.getFiller(x, y, z), 0,
+                stateHolder != null ? stateHolder.clone() : null);
+        }
+    }
+
+    /**
+     * Scans the chain in front of the pusher and the cells it moves into. Returns null when the push is blocked
+     * (no empty cell within range, fewer than {@link #distance} empty cells after the chain, or an unloaded chunk)
+     * or the pusher has no direction.
+     */
+    @Nullable
+    private PushPlan planPush(
+            @Nonnull ActivationContext ctx,
+            int rotationIndex,
+            @Nonnull ChunkCursor cursor) {
+        int[][] directions = pushDirections(ctx, rotationIndex);
+        if (directions == null)
+            return null;
+        int[] forward = directions[0];
+        int[] up = directions[1];
+
+        int maxRange = Math.max(1, range);
+        int moveDistance = Math.max(1, distance);
+        int startX = ctx.blockX() + up[0];
+        int startY = ctx.blockY() + up[1];
+        int startZ = ctx.blockZ() + up[2];
+
+        // Read block IDs only: find the chain length and make sure the cells after it are empty.
+        int[] chainBlockIds = new int[maxRange];
         int chainLength = 0;
-        for (int i = 0; i < maxRange; i++) {
-            Vector3i c = frontPusherPosition.clone().add(globalForward.clone().scale(i).add(scaledGlobalUpVector));
+        while (true) {
+            int x = startX + forward[0] * chainLength;
+            int y = startY + forward[1] * chainLength;
+            int z = startZ + forward[2] * chainLength;
 
-            WorldChunk chunk = world.getChunk(ChunkUtil.indexChunkFromBlock(c.x, c.z));
+            WorldChunk chunk = cursor.chunkAt(x, z);
             if (chunk == null)
-                break;
+                return null;
 
-            int blockId = chunk.getBlock(c.x, c.y, c.z);
-            BlockType blockType = BlockType.getAssetMap().getAsset(blockId);
-            if (!isPushable(blockType, blockId))
+            int blockId = chunk.getBlock(x, y, z);
+            if (!isOccupied(blockId))
                 break;
+            if (chainLength == maxRange)
+                return null;
+
+            chainBlockIds[chainLength++] = blockId;
+        }
 
-            chainBlockIds[chainLength]     = blockId;
-            chainRotations[chainLength]    = chunk.getRotationIndex(c.x, c.y, c.z);
-            chainFillers[chainLength]      = chunk.getFiller(c.x, c.y, c.z);
-            chainBlockTypes[chainLength]   = blockType;
+        // The chain moves in one step, so every cell it passes through must be empty now.
+        for (int j = chainLength + 1; j < chainLength + moveDistance; j++) {
+            int x = startX + forward[0] * j;
+            int y = startY + forward[1] * j;
+            int z = startZ + forward[2] * j;
 
-            Holder<ChunkStore> stateHolder = chunk.getBlockComponentHolder(c.x, c.y, c.z);
-            chainHolders[chainLength]      = stateHolder != null ? stateHolder.clone() : null;
+            WorldChunk chunk = cursor.chunkAt(x, z);
+            if (chunk == null)
+                return null;
 
-            chainLength++;
+            if (isOccupied(chunk.getBlock(x, y, z)))
+                return null;
         }
 
-        Vector3i nextEmptyPosition = frontPusherPosition.clone().add(globalForward.clone().scale(chainLength).add(scaledGlobalUpVector));
-        WorldChunk emptyChunk = world.getChunk(ChunkUtil.indexChunkFromBlock(nextEmptyPosition.x, nextEmptyPosition.z));
-        if (emptyChunk == null)
-            return;
+        return new PushPlan(startX, startY, startZ, forward, up, moveDistance, Arrays.copyOf(chainBlockIds, chainLength));
+    }
 
-        int emptyBlockId = emptyChunk.getBlock(nextEmptyPosition.x, nextEmptyPosition.y, nextEmptyPosition.z);
-        BlockType emptyBlockType = BlockType.getAssetMap().getAsset(emptyBlockId);
-        if (!isEmpty(emptyBlockType, emptyBlockId))
-            return;
+    /** Global {forward, up scaled by the up amount} of the pusher, or null when either is zero. */
+    @Nullable
+    private int[][] pushDirections(@Nonnull ActivationContext ctx, int rotationIndex) {
+        int[] orientation = getOrientation(pusherKinds.get(ctx.blockId(), ctx.blockType()), rotationIndex);
+        int[] forward = {orientation[0], orientation[1], orientation[2]};
+        int[] up = {orientation[3] * upAmount, orientation[4] * upAmount, orientation[5] * upAmount};
+        if (forward[0] == 0 && forward[1] == 0 && forward[2] == 0)
+            return null;
+        if (up[0] == 0 && up[1] == 0 && up[2] == 0)
+            return null;
+        return new int[][]{forward, up};
+    }
 
-        movePlayers(world, globalForward, scaledGlobalUpVector, frontPusherPosition, nextEmptyPosition, chainLength);
+    private static final int[][] FACES = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+
+    /**
+     * Moves the connected structure in front of the pusher by {@link #distance} cells. Every block of it is queued
+     * under this pusher, so the movement graph keeps them in one component: the structure is written in one pass,
+     * batched per section, or not at all. Returns false when the cell in front is empty and the chain push should
+     * handle it; a blocked structure returns true without moving.
+     */
+    private boolean pushStructure(
+            @Nonnull ActivationContext ctx,
+            @Nonnull ArcaneMoveState arcaneMoveState,
+            long pusherKey,
+            int rotationIndex,
+            @Nonnull ChunkCursor cursor) {
+        int[][] directions = pushDirections(ctx, rotationIndex);
+        if (directions == null)
+            return true;
+        int[] forward = directions[0];
+        int[] up = directions[1];
+
+        int startX = ctx.blockX() + up[0];
+        int startY = ctx.blockY() + up[1];
+        int startZ = ctx.blockZ() + up[2];
+        WorldChunk startChunk = cursor.chunkAt(startX, startZ);
+        if (startChunk == null)
+            return true;
+        int startBlockId = startChunk.getBlock(startX, startY, startZ);
+        if (!isOccupied(startBlockId))
+            return false;
 
-        if (chainLength == 0)
-            return;
+        LongArrayList members = collectStructure(pusherKey, startX, startY, startZ, startBlockId, cursor);
+        if (members == null)
+            return true;
+        LongOpenHashSet memberSet = new LongOpenHashSet(members);
+
+        // The structure moves in one step, so every cell it passes through must be part of it or empty now.
+        int moveDistance = Math.max(1, distance);
+        LongArrayList entered = new LongArrayList();
+        for (int i = 0; i < members.size(); i++) {
+            long cell = members.getLong(i);
+            for (int k = 1; k <= moveDistance; k++) {
+                int x = BlockUtil.unpackX(cell) + forward[0] * k;
+                int y = BlockUtil.unpackY(cell) + forward[1] * k;
+                int z = BlockUtil.unpackZ(cell) + forward[2] * k;
+                long target = BlockUtil.pack(x, y, z);
+                if (memberSet.contains(target))
+                    continue;
+                if (y < 0 || y >= ChunkUtil.HEIGHT)
+                    return true;
+
+                WorldChunk chunk = cursor.chunkAt(x, z);
+                if (chunk == null || isOccupied(chunk.getBlock(x, y, z)))
+                    return true;
+                entered.add(target);
+            }
+        }
 
-        for (int j = chainLength - 1; j >= 0; j--) {
-            Vector3i fromPosition = frontPusherPosition.clone().add(globalForward.clone().scale(j).add(scaledGlobalUpVector));
-            Vector3i toPosition = frontPusherPosition.clone().add(globalForward.clone().scale(j + 1).add(scaledGlobalUpVector));
+        World world = ctx.world();
+        Vector3i pusherPosition = new Vector3i(ctx.blockX(), ctx.blockY(), ctx.blockZ());
+        Vector3i globalForward = new Vector3i(forward[0], forward[1], forward[2]);
+        Vector3i displacement = globalForward.clone().scale(moveDistance);
+        boolean firstPush = arcaneMoveState.addPushFollowUp(pusherKey, () -> {
+            moveEntities(world, toPositions(members), toPositions(entered), displacement);
+            Vector3i destinationPosition = pusherPosition.clone().add(globalForward).add(new Vector3i(up[0], up[1], up[2]));
+            ActivationExecutor.playEffects(world, destinationPosition.x, destinationPosition.y, destinationPosition.z, getEffects());
+        });
+        if (!firstPush)
+            return true;
 
-            WorldChunk fromChunk = world.getChunk(ChunkUtil.indexChunkFromBlock(fromPosition.x, fromPosition.z));
-            WorldChunk toChunk = world.getChunk(ChunkUtil.indexChunkFromBlock(toPosition.x, toPosition.y));
-            if (fromChunk == null || toChunk == null)
-                continue;
+        for (int i = 0; i < members.size(); i++) {
+            long cell = members.getLong(i);
+            int x = BlockUtil.unpackX(cell);
+            int y = BlockUtil.unpackY(cell);
+            int z = BlockUtil.unpackZ(cell);
+            WorldChunk chunk = cursor.chunkAt(x, z);
+            if (chunk == null)
+                return true;
+
+            int blockId = chunk.getBlock(x, y, z);
+            Holder<ChunkStore> stateHolder = chunk.getBlockComponentHolder(x, y, z);
+            arcaneMoveState.addMoveEntry(pusherKey, new Vector3i(x, y, z), displacement.clone(),
+                BlockType.getAssetMap().getAsset(blockId), blockId,
+                chunk.getRotationIndex(x, y, z), chunk.getFiller(x, y, z), 0,
+                stateHolder != null ? stateHolder.clone() : null);
+        }
+        return true;
+    }
 
-            ArcaneMoveState arcaneMoveState = world.getChunkStore().getStore().getResource(ArcaneMoveState.getResourceType());
-            if (arcaneMoveState == null)
-                return;
+    /**
+     * Flood-fills the face-connected structure blocks from the start cell, never crossing the pusher. Returns null
+     * when it touches an unloaded chunk or grows past {@link #maxBlocks}.
+     */
+    @Nullable
+    private LongArrayList collectStructure(
+            long pusherKey,
+            int startX,
+            int startY,
+            int startZ,
+            int startBlockId,
+            @Nonnull ChunkCursor cursor) {
+        LongArrayList members = new LongArrayList();
+        LongOpenHashSet visited = new LongOpenHashSet();
+        long start = BlockUtil.pack(startX, startY, startZ);
+        visited.add(pusherKey);
+        visited.add(start);
+        members.add(start);
+
+        for (int i = 0; i < members.size(); i++) {
+            long cell = members.getLong(i);
+            int x = BlockUtil.unpackX(cell);
+            int y = BlockUtil.unpackY(cell);
+            int z = BlockUtil.unpackZ(cell);
+            for (int[] face : FACES) {
+                int nx = x + face[0];
+                int ny = y + face[1];
+                int nz = z + face[2];
+                if (ny < 0 || ny >= ChunkUtil.HEIGHT)
+                    continue;
+                if (!visited.add(BlockUtil.pack(nx, ny, nz)))
+                    continue;
+
+                WorldChunk chunk = cursor.chunkAt(nx, nz);
+                if (chunk == null)
+                    return null;
+                if (!isStructureBlock(chunk.getBlock(nx, ny, nz), startBlockId))
+                    continue;
+                if (members.size() >= maxBlocks) {
+                    ArcaneRelayPlugin.get().getLogger().atWarning().log("MoveBlock activation " + getId()
+                        + ": structure exceeds MaxBlocks " + maxBlocks);
+                    return null;
+                }
+                members.add(BlockUtil.pack(nx, ny, nz));
+            }
+        }
+        return members;
+    }
 
-            arcaneMoveState.addMoveEntry(fromPosition,
-                toPosition.clone().subtract(fromPosition), chainBlockTypes[j], chainBlockIds[j],
-                chainRotations[j], chainFillers[j], 0, chainHolders[j]);
+    private boolean isStructureBlock(int blockId, int startBlockId) {
+        if (!isOccupied(blockId))
+            return false;
+        if (structureMatcher == null)
+            return blockId == startBlockId;
+        BlockType blockType = BlockType.getAssetMap().getAsset(blockId);
+        return blockType != null && structureBlocks.get(blockId, blockType);
+    }
 
-            world.execute(() -> {
-                Vector3i destinationPosition = frontPusherPosition.clone().add(globalForward).add(scaledGlobalUpVector);
-                ActivationExecutor.playEffects(world, destinationPosition.x, destinationPosition.y, destinationPosition.z,
-                    getEffects());
-            });
+    @Nonnull
+    private Boolean computeStructureBlock(@Nonnull BlockType blockType) {
+        BlockTypeMatcher matcher = structureMatcher;
+        String key = blockType.getId();
+        return key != null && matcher != null && matcher.matches(key);
+    }
+
+    @Nonnull
+    private static Vector3i[] toPositions(@Nonnull LongArrayList cells) {
+        Vector3i[] positions = new Vector3i[cells.size()];
+        for (int i = 0; i < positions.length; i++) {
+            long cell = cells.getLong(i);
+            positions[i] = new Vector3i(BlockUtil.unpackX(cell), BlockUtil.unpackY(cell), BlockUtil.unpackZ(cell));
         }
+        return positions;
     }
 
-    private void movePlayers(World world, Vector3i globalForward, Vector3i scaledGlobalUpVector,
-            Vector3i frontPusherPosition, Vector3i nextEmptyPosition, final int len) {
-        Store<EntityStore> entityStore = world.getEntityStore().getStore();
-        Set<Ref<EntityStore>> entitiesOnTop = new HashSet<>();
-        collectEntitiesOnTopOfBlock(entityStore, nextEmptyPosition, entitiesOnTop);
-        collectEntitiesOnTopOfBlock(entityStore, frontPusherPosition.clone(), entitiesOnTop);
+    /** A block is occupied (and pushable) unless it is air, unknown, or has the Empty material. */
+    private static boolean isOccupied(int blockId) {
+        if (blockId == 0)
+            return false;
+        BlockType blockType = BlockType.getAssetMap().getAsset(blockId);
+        return blockType != null && blockType.getMaterial() != BlockMaterial.Empty;
+    }
+
+    /** Remembers the last chunk looked up, since a push chain almost always stays within one chunk. */
+    private static final class ChunkCursor {
+        private final World world;
+        private long chunkIndex;
+        @Nullable
+        private WorldChunk chunk;
 
+        ChunkCursor(@Nonnull World world) {
+            this.world = world;
+        }
+
+        @Nullable
+        WorldChunk chunkAt(int blockX, int blockZ) {
+            long index = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
+            if (chunk == null || index != chunkIndex) {
+                chunk = world.getChunk(index);
+                chunkIndex = index;
+            }
+            return chunk;
+        }
+    }
+
+    private void movePlayers(World world, Vector3i globalForward, Vector3i displacement, int moveDistance, Vector3i scaledGlobalUpVector,
+            Vector3i frontPusherPosition, Vector3i nextEmptyPosition, final int len) {
+        // Entities can stand on the pusher, on any block of the chain or on the cell the chain moves into.
+        Vector3i[] cells = new Vector3i[len + 2];
+        cells[0] = frontPusherPosition;
+        cells[1] = nextEmptyPosition;
         for (int i = 0; i < len; i++) {
-            Vector3i fromPosition = frontPusherPosition.clone().add(globalForward.clone().scale(i).add(scaledGlobalUpVector));
-            collectEntitiesOnTopOfBlock(entityStore, fromPosition, entitiesOnTop);
+            cells[i + 2] = frontPusherPosition.clone().add(globalForward.clone().scale(i).add(scaledGlobalUpVector));
+        }
+
+        // With a distance above 1 the chain also sweeps through the cells past the first empty one.
+        Vector3i[] sweptCells = new Vector3i[moveDistance - 1];
+        for (int i = 0; i < sweptCells.length; i++) {
+            sweptCells[i] = nextEmptyPosition.clone().add(globalForward.clone().scale(i + 1));
         }
 
-        final List<Ref<EntityStore>> entitiesOnTopList = new ArrayList<>(entitiesOnTop);
+        moveEntities(world, cells, sweptCells, displacement);
+    }
 
-        for (Ref<EntityStore> ref : entitiesOnTopList) {
+    /** Moves every entity standing on one of {@code cells} or inside one of {@code sweptCells} by {@code displacement}. */
+    private static void moveEntities(World world, Vector3i[] cells, Vector3i[] sweptCells, Vector3i displacement) {
+        Store<EntityStore> entityStore = world.getEntityStore().getStore();
+        for (Ref<EntityStore> ref : collectEntitiesOnTopOfBlocks(entityStore, cells, sweptCells)) {
             if (ref == null || !ref.isValid())
                 continue;
 
@@ -262,7 +594,7 @@ public class MoveBlockActivation extends Activation {
             if (transform == null)
                 continue;
 
-            moveEntityWithBlock(world, entityStore, ref, transform, globalForward);
+            moveEntityWithBlock(world, entityStore, ref, transform, displacement);
         }
     }
 
@@ -287,13 +619,37 @@ public class MoveBlockActivation extends Activation {
             && feetPosition.z >= blockPosition.z - 0.1 && feetPosition.z <= blockPosition.z + 1.1;
     }
 
-    private static void collectEntitiesOnTopOfBlock(
+    private static boolean isFeetInsideBlock(Vector3d feetPosition, Vector3i blockPosition) {
+        return feetPosition.x >= blockPosition.x - 0.1 && feetPosition.x <= blockPosition.x + 1.1
+            && feetPosition.y >= blockPosition.y - 0.05 && feetPosition.y < blockPosition.y + 0.95
+            && feetPosition.z >= blockPosition.z - 0.1 && feetPosition.z <= blockPosition.z + 1.1;
+    }
+
+    /**
+     * Runs one entity query over the volume above {@code blockPositions} and inside {@code sweptPositions}, and
+     * keeps entities standing on one of the former or inside one of the latter.
+     */
+    @Nonnull
+    private static List<Ref<EntityStore>> collectEntitiesOnTopOfBlocks(
             @Nonnull Store<EntityStore> entityStore,
-            Vector3i blockPosition,
-            @Nonnull Set<Ref<EntityStore>> out) {
-        Vector3d min = new Vector3d(blockPosition.x - 0.1, blockPosition.y + 0.9, blockPosition.z - 0.1);
-        Vector3d max = new Vector3d(blockPosition.x + 1.1, blockPosition.y + 2.1, blockPosition.z + 1.1);
+            @Nonnull Vector3i[] blockPositions,
+            @Nonnull Vector3i[] sweptPositions) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (Vector3i p : blockPositions) {
+            minX = Math.min(minX, p.x - 0.1); maxX = Math.max(maxX, p.x + 1.1);
+            minY = Math.min(minY, p.y + 0.9); maxY = Math.max(maxY, p.y + 2.1);
+            minZ = Math.min(minZ, p.z - 0.1); maxZ = Math.max(maxZ, p.z + 1.1);
+        }
+        for (Vector3i p : sweptPositions) {
+            minX = Math.min(minX, p.x - 0.1); maxX = Math.max(maxX, p.x + 1.1);
+            minY = Math.min(minY, p.y - 0.1); maxY = Math.max(maxY, p.y + 2.1);
+            minZ = Math.min(minZ, p.z - 0.1); maxZ = Math.max(maxZ, p.z + 1.1);
+        }
+        Vector3d min = new Vector3d(minX, minY, minZ);
+        Vector3d max = new Vector3d(maxX, maxY, maxZ);
 
+        List<Ref<EntityStore>> out = new ArrayList<>();
         for (var ref : TargetUtil.getAllEntitiesInBox(min, max, entityStore)) {
             if (ref == null || !ref.isValid())
                 continue;
@@ -305,9 +661,23 @@ public class MoveBlockActivation extends Activation {
             BoundingBox boundingBox = entityStore.getComponent(ref, BoundingBox.getComponentType());
             Vector3d feet = getFeetPosition(transform, boundingBox);
 
-            if (isFeetOnTopOfBlock(feet, blockPosition))
+            if (isOnAny(feet, blockPositions, sweptPositions)) {
                 out.add(ref);
+            }
+        }
+        return out;
+    }
+
+    private static boolean isOnAny(Vector3d feet, Vector3i[] blockPositions, Vector3i[] sweptPositions) {
+        for (Vector3i blockPosition : blockPositions) {
+            if (isFeetOnTopOfBlock(feet, blockPosition))
+                return true;
+        }
+        for (Vector3i sweptPosition : sweptPositions) {
+            if (isFeetInsideBlock(feet, sweptPosition))
+                return true;
         }
+        return false;
     }
 
     private static boolean isPushUp(Vector3i direction) {
@@ -324,7 +694,7 @@ public class MoveBlockActivation extends Activation {
         KnockbackComponent knockback = entityStore.ensureAndGetComponent(ref, KnockbackComponent.getComponentType());
         knockback.setVelocity(velocity);
         knockback.setVelocityType(ChangeVelocityType.Set);
-        knockback.setVelocityConfig(new VelocityConfig());
+        knockback.setVelocityConfig(KNOCKBACK_VELOCITY_CONFIG);
         knockback.setDuration(KNOCKBACK_DURATION);
     }
 
@@ -336,7 +706,9 @@ public class MoveBlockActivation extends Activation {
             Vector3i direction) {
         PlayerRef playerRef = entityStore.getComponent(ref, PlayerRef.getComponentType());
 
-        if (isPushUp(direction) && playerRef == null) {
+        // A knockback only carries an entity about one cell; further moves take it along the whole displacement.
+        boolean multiCell = Math.abs(direction.x) + Math.abs(direction.y) + Math.abs(direction.z) > 1;
+        if (multiCell || (isPushUp(direction) && playerRef == null)) {
             teleportPlayerWithBlock(world, entityStore, ref, transform, direction);
         } else {
             applyKnockbackWithLimit(entityStore, ref, direction);
@@ -6,6 +6,7 @@ import com.arcanerelay.core.activation.ActivationExecutor;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 
 public class SendSignalActivation extends Activation {
     public static final BuilderCodec<SendSignalActivation> CODEC =
@@ -25,4 +26,13 @@ public class SendSignalActivation extends Activation {
         ActivationExecutor.playEffects(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), getEffects());
         ActivationExecutor.sendSignals(ctx);
     }
+
+    @Override
+    public void executeBatch(@Nonnull List<ActivationContext> batch) {
+        int soundIndex = ActivationExecutor.resolveSoundIndex(getEffects());
+        for (ActivationContext ctx : batch) {
+            ActivationExecutor.playSound(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), soundIndex);
+        }
+        ActivationExecutor.sendSignals(batch);
+    }
 }
@@ -4,6 +4,8 @@ import com.arcanerelay.ArcaneRelayPlugin;
 import com.arcanerelay.config.Activation;
 import com.arcanerelay.config.ActivationContext;
 import com.arcanerelay.core.activation.ActivationExecutor;
+import com.arcanerelay.core.activation.WaveBuffer;
+import com.arcanerelay.util.BlockTypeTable;
 import com.arcanerelay.util.BlockUtil;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
@@ -114,7 +116,38 @@ public class ToggleDoorActivation extends Activation {
         return direction.dot(doorRotationVector) < 0.0;
     }
 
+    /**
+     * Where a door's double-door partner sits, per door block type: the base hitbox it is matched on and
+     * the partner offset for each yaw.
+     */
+    private record DoorGeometry(int hitboxTypeIndex, @Nullable Vector3i[] partnerOffsetByYaw) {
+        static final DoorGeometry NONE = new DoorGeometry(Integer.MIN_VALUE, null);
+    }
+
+    private static final BlockTypeTable<DoorGeometry> DOOR_GEOMETRY = new BlockTypeTable<>(ToggleDoorActivation::computeDoorGeometry);
+
+    @Nonnull
+    private static DoorGeometry computeDoorGeometry(@Nonnull BlockType blockType) {
+        if (blockType.getItem() == null) return DoorGeometry.NONE;
+        BlockType baseBlockType = BlockType.getAssetMap().getAsset(blockType.getItem().getId());
+        if (baseBlockType == null) return DoorGeometry.NONE;
+        int hitboxTypeIndex = baseBlockType.getHitboxTypeIndex();
+        BlockBoundingBoxes blockBoundingBoxes = BlockBoundingBoxes.getAssetMap().getAsset(hitboxTypeIndex);
+        if (blockBoundingBoxes == null) return new DoorGeometry(hitboxTypeIndex, null);
+        BlockBoundingBoxes.RotatedVariantBoxes baseBoxes = blockBoundingBoxes.get(Rotation.None, Rotation.None, Rotation.None);
+        if (baseBoxes == null) return new DoorGeometry(hitboxTypeIndex, null);
+
+        int offsetX = (int) baseBoxes.getBoundingBox().getMax().x * 2 - 1;
+        Rotation[] yaws = Rotation.values();
+        Vector3i[] offsets = new Vector3i[yaws.length];
+        for (Rotation yaw : yaws) {
+            offsets[yaw.ordinal()] = MathUtil.rotateVectorYAxis(new Vector3i(offsetX, 0, 0), yaw.getDegrees(), false);
+        }
+        return new DoorGeometry(hitboxTypeIndex, offsets);
+    }
+
     private record DoorInfo(
+        int blockId,
         @Nonnull BlockType blockType,
         int filler,
         @Nonnull Vector3i blockPosition,
@@ -129,7 +162,8 @@ public class ToggleDoorActivation extends Activation {
     ) {
         WorldChunk chunk = world.getChunk(ChunkUtil.indexChunkFromBlock(x, z));
         if (chunk == null) return null;
-        BlockType blockType = chunk.getBlockType(x, y, z);
+        int blockId = chunk.getBlock(x, y, z);
+        BlockType blockType = BlockType.getAssetMap().getAsset(blockId);
         if (blockType == null) return null;
         int rotationIndex = chunk.getRotationIndex(x, y, z);
         RotationTuple blockRotation = RotationTuple.get(rotationIndex);
@@ -138,35 +172,28 @@ public class ToggleDoorActivation extends Activation {
         Rotation doorRotation = blockRotation.yaw();
         int filler = chunk.getFiller(x, y, z);
         if (doorRotation != rotationToCheck) return null;
-        return new DoorInfo(blockType, filler, new Vector3i(x, y, z), doorState);
+        return new DoorInfo(blockId, blockType, filler, new Vector3i(x, y, z), doorState);
     }
 
     @Nullable
     private static DoorInfo getDoubleDoor(
         @Nonnull World world,
         @Nonnull Vector3i worldPosition,
+        int blockId,
         @Nonnull BlockType blockType,
         int rotation,
         @Nonnull DoorState doorStateToCheck
     ) {
-        if (blockType.getItem() == null) return null;
-        BlockType baseBlockType = BlockType.getAssetMap().getAsset(blockType.getItem().getId());
-        if (baseBlockType == null) return null;
-        int hitboxTypeIndex = baseBlockType.getHitboxTypeIndex();
-        BlockBoundingBoxes blockBoundingBoxes = BlockBoundingBoxes.getAssetMap().getAsset(hitboxTypeIndex);
-        if (blockBoundingBoxes == null) return null;
-        BlockBoundingBoxes.RotatedVariantBoxes baseBoxes = blockBoundingBoxes.get(Rotation.None, Rotation.None, Rotation.None);
-        if (baseBoxes == null) return null;
-        int offsetX = (int) baseBoxes.getBoundingBox().getMax().x * 2 - 1;
-        Vector3i offset = new Vector3i(offsetX, 0, 0);
+        DoorGeometry geometry = DOOR_GEOMETRY.get(blockId, blockType);
+        Vector3i[] partnerOffsets = geometry.partnerOffsetByYaw();
+        if (partnerOffsets == null) return null;
         Rotation rotationToCheck = RotationTuple.get(rotation).yaw();
-        Vector3i otherPos = worldPosition.clone().add(MathUtil.rotateVectorYAxis(offset, rotationToCheck.getDegrees(), false));
-        DoorInfo matchingDoor = getDoorAtPosition(world, otherPos.x, otherPos.y, otherPos.z, rotationToCheck.flip());
+        Vector3i offset = partnerOffsets[rotationToCheck.ordinal()];
+        DoorInfo matchingDoor = getDoorAtPosition(world,
+            worldPosition.x + offset.x, worldPosition.y + offset.y, worldPosition.z + offset.z, rotationToCheck.flip());
         if (matchingDoor == null || matchingDoor.doorState() != doorStateToCheck || matchingDoor.filler() != 0) return null;
-        BlockType matchingBlockType = matchingDoor.blockType();
-        if (matchingBlockType.getItem() == null) return null;
-        int matchingHitboxIndex = BlockType.getAssetMap().getAsset(matchingBlockType.getItem().getId()).getHitboxTypeIndex();
-        return matchingHitboxIndex == hitboxTypeIndex ? matchingDoor : null;
+        DoorGeometry matchingGeometry = DOOR_GEOMETRY.get(matchingDoor.blockId(), matchingDoor.blockType());
+        return matchingGeometry.hitboxTypeIndex() == geometry.hitboxTypeIndex() ? matchingDoor : null;
     }
 
     @Nullable
@@ -187,15 +214,16 @@ public class ToggleDoorActivation extends Activation {
             BlockType base = BlockType.getAssetMap().getAsset(blockType.getItem().getId());
             if (base != null && base.getBlockForState(interactionStateToSend) != null) blockTypeForState = base;
         }
-        world.setBlockInteractionState(blockPosition, blockTypeForState, interactionStateToSend);
-        BlockType currentBlockType = world.getBlockType(blockPosition);
+        WaveBuffer.setBlockInteractionState(world, blockPosition.x, blockPosition.y, blockPosition.z, blockTypeForState, interactionStateToSend);
+        // The block is already written; resolving its type from the asset saves reading the chunk back.
+        BlockType currentBlockType = blockTypeForState.getBlockForState(interactionStateToSend);
         if (currentBlockType == null) return null;
         BlockType newBlockType = currentBlockType.getBlockForState(interactionStateToSend);
         if (oldHitbox != null) {
             BlockBoundingBoxes.RotatedVariantBoxes oldRotated = oldHitbox.get(rotationIndex);
             if (oldRotated != null) {
                 FillerBlockUtil.forEachFillerBlock(oldRotated, (bx, by, bz) ->
-                    world.performBlockUpdate(blockPosition.x + bx, blockPosition.y + by, blockPosition.z + bz));
+                    WaveBuffer.performBlockUpdate(world, blockPosition.x + bx, blockPosition.y + by, blockPosition.z + bz));
             }
         }
         if (newBlockType != null) {
@@ -204,7 +232,7 @@ public class ToggleDoorActivation extends Activation {
                 BlockBoundingBoxes.RotatedVariantBoxes newRotated = newHitbox.get(rotationIndex);
                 if (newRotated != null) {
                     FillerBlockUtil.forEachFillerBlock(newRotated, (bx, by, bz) ->
-                        world.performBlockUpdate(blockPosition.x + bx, blockPosition.y + by, blockPosition.z + bz));
+                        WaveBuffer.performBlockUpdate(world, blockPosition.x + bx, blockPosition.y + by, blockPosition.z + bz));
                 }
             }
         }
@@ -225,7 +253,8 @@ public class ToggleDoorActivation extends Activation {
         int mainX = main[0], mainY = main[1], mainZ = main[2];
         WorldChunk mainChunk = world.getChunk(ChunkUtil.indexChunkFromBlock(mainX, mainZ));
         if (mainChunk == null) return;
-        BlockType mainBlockType = mainChunk.getBlockType(mainX, mainY, mainZ);
+        int mainBlockId = mainChunk.getBlock(mainX, mainY, mainZ);
+        BlockType mainBlockType = BlockType.getAssetMap().getAsset(mainBlockId);
         if (mainBlockType == null) return;
 
         Vector3i mainPos = new Vector3i(mainX, mainY, mainZ);
@@ -262,7 +291,7 @@ public class ToggleDoorActivation extends Activation {
         if (resultType == null) return;
 
         DoorState stateDoubleDoor = getOppositeDoorState(currentState);
-        DoorInfo doubleDoor = getDoubleDoor(world, mainPos, mainBlockType, rotation, stateDoubleDoor);
+        DoorInfo doubleDoor = getDoubleDoor(world, mainPos, mainBlockId, mainBlockType, rotation, stateDoubleDoor);
         if (doubleDoor != null) {
             DoorState stateForDoubleDoor = horizontal ? newState : getOppositeDoorState(newState);
             activateDoor(world, doubleDoor.blockType(), doubleDoor.blockPosition(), doubleDoor.doorState(), stateForDoubleDoor);
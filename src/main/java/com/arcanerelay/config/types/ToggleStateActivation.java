@@ -5,13 +5,17 @@ import com.arcanerelay.config.Activation;
 import com.arcanerelay.config.ActivationContext;
 import com.arcanerelay.config.ActivationEffects;
 import com.arcanerelay.core.activation.ActivationExecutor;
+import com.arcanerelay.core.activation.WaveBuffer;
+import com.arcanerelay.util.BlockTypeTable;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
-import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ToggleStateActivation extends Activation {
     public static final BuilderCodec<ToggleStateActivation> CODEC = BuilderCodec.builder(
@@ -54,9 +58,9 @@ public class ToggleStateActivation extends Activation {
         .add()
         .appendInherited(
             new KeyedCodec<>("SendSignalWhen", Codec.STRING),
-            (a, s) -> a.sendSignalWhen = s,
+            (a, s) -> a.setSendSignalWhen(s),
             a -> a.sendSignalWhen,
-            (a, p) -> a.sendSignalWhen = p.sendSignalWhen
+            (a, p) -> a.setSendSignalWhen(p.sendSignalWhen)
         )
         .documentation("When to send signals: Off (only when transitioning to off), On (only when transitioning to on), Both (always). Default: Off.")
         .add()
@@ -65,20 +69,49 @@ public class ToggleStateActivation extends Activation {
     private String onState = "On";
     private String offState = "Off";
     private String sendSignalWhen = "Off";
+    private SignalMode signalMode = SignalMode.OFF;
     @Nullable
     private ActivationEffects onEffects;
     @Nullable
     private ActivationEffects offEffects;
+    /** Per block type: which state it toggles to, and whether that sends a signal. */
+    private volatile BlockTypeTable<Transition> transitions = new BlockTypeTable<>(this::computeTransition);
 
     public ToggleStateActivation() {
     }
 
+    private enum SignalMode {
+        ON,
+        OFF,
+        BOTH;
+
+        @Nonnull
+        static SignalMode parse(@Nullable String when) {
+            if (when == null) return OFF;
+            return switch (when.toLowerCase()) {
+                case "on" -> ON;
+                case "both" -> BOTH;
+                default -> OFF;
+            };
+        }
+    }
+
+    private record Transition(
+        @Nonnull String newState,
+        int newBlockId,
+        @Nullable BlockType newBlockType,
+        int interactionSoundIndex,
+        boolean turnsOn,
+        boolean sendSignal
+    ) {}
+
     public String getOnState() {
         return onState;
     }
 
     public void setOnState(String onState) {
         this.onState = onState;
+        this.transitions = new BlockTypeTable<>(this::computeTransition);
     }
 
     public String getOffState() {
@@ -87,6 +120,17 @@ public class ToggleStateActivation extends Activation {
 
     public void setOffState(String offState) {
         this.offState = offState;
+        this.transitions = new BlockTypeTable<>(this::computeTransition);
+    }
+
+    public String getSendSignalWhen() {
+        return sendSignalWhen;
+    }
+
+    public void setSendSignalWhen(String sendSignalWhen) {
+        this.sendSignalWhen = sendSignalWhen;
+        this.signalMode = SignalMode.parse(sendSignalWhen);
+        this.transitions = new BlockTypeTable<>(this::computeTransition);
     }
 
     @Nullable
@@ -109,7 +153,45 @@ public class ToggleStateActivation extends Activation {
 
     @Override
     public void execute(@Nonnull ActivationContext ctx) {
-        String state = ctx.blockType().getStateForBlock(ctx.blockType());
+        if (toggle(ctx, resolveSoundIndex(onEffects), resolveSoundIndex(offEffects))) {
+            ActivationExecutor.sendSignals(ctx);
+        }
+    }
+
+    @Override
+    public void executeBatch(@Nonnull List<ActivationContext> batch) {
+        int onSoundIndex = resolveSoundIndex(onEffects);
+        int offSoundIndex = resolveSoundIndex(offEffects);
+
+        List<ActivationContext> signalling = new ArrayList<>();
+        for (ActivationContext ctx : batch) {
+            if (toggle(ctx, onSoundIndex, offSoundIndex)) {
+                signalling.add(ctx);
+            }
+        }
+        ActivationExecutor.sendSignals(signalling);
+    }
+
+    /** Falls back to the shared {@code Effects} when the on/off specific effects are not set. */
+    private int resolveSoundIndex(@Nullable ActivationEffects effects) {
+        return ActivationExecutor.resolveSoundIndex(effects != null ? effects : getEffects());
+    }
+
+    /** Toggles one block and plays its sounds. Returns whether it should signal its outputs. */
+    private boolean toggle(@Nonnull ActivationContext ctx, int onSoundIndex, int offSoundIndex) {
+        Transition transition = transitions.get(ctx.blockId(), ctx.blockType());
+
+        WaveBuffer.setBlockInteractionState(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), ctx.blockType(),
+            transition.newState(), transition.newBlockId(), transition.newBlockType());
+
+        ActivationExecutor.playSound(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), transition.interactionSoundIndex());
+        ActivationExecutor.playSound(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), transition.turnsOn() ? onSoundIndex : offSoundIndex);
+        return transition.sendSignal();
+    }
+
+    @Nonnull
+    private Transition computeTransition(@Nonnull BlockType blockType) {
+        String state = blockType.getStateForBlock(blockType);
         if (state == null || state.isEmpty() || "null".equals(state)) {
             state = onState;
         }
@@ -117,28 +199,17 @@ public class ToggleStateActivation extends Activation {
         boolean isCurrentlyOff = offState.equalsIgnoreCase(state);
         String newState = isCurrentlyOff ? onState : offState;
 
-        ctx.world().setBlockInteractionState(new Vector3i(ctx.blockX(), ctx.blockY(), ctx.blockZ()), ctx.blockType(), newState);
-
-        var newBlockType = ctx.blockType().getBlockForState(newState);
-        if (newBlockType != null) {
-            ActivationExecutor.playBlockInteractionSound(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), newBlockType);
-        }
-
-        ActivationEffects effects = isCurrentlyOff ? onEffects : offEffects;
-        if (effects == null) effects = getEffects();
-        ActivationExecutor.playEffects(ctx.world(), ctx.blockX(), ctx.blockY(), ctx.blockZ(), effects);
-        if (shouldSendSignal(state, newState)) {
-            ActivationExecutor.sendSignals(ctx);
-        }
+        BlockType newBlockType = blockType.getBlockForState(newState);
+        int newBlockId = newBlockType != null ? BlockType.getAssetMap().getIndex(newBlockType.getId()) : -1;
+        int soundIndex = newBlockType != null ? newBlockType.getInteractionSoundEventIndex() : 0;
+        return new Transition(newState, newBlockId, newBlockType, soundIndex, isCurrentlyOff, shouldSendSignal(state, newState));
     }
 
     private boolean shouldSendSignal(String currentState, String newState) {
-        String when = sendSignalWhen != null ? sendSignalWhen.toLowerCase() : "off";
-        return switch (when) {
-            case "on" -> currentState.equalsIgnoreCase(offState) && newState.equalsIgnoreCase(onState);
-            case "off" -> currentState.equalsIgnoreCase(onState) && newState.equalsIgnoreCase(offState);
-            case "both" -> true;
-            default -> currentState.equalsIgnoreCase(onState) && newState.equalsIgnoreCase(offState);
+        return switch (signalMode) {
+            case ON -> currentState.equalsIgnoreCase(offState) && newState.equalsIgnoreCase(onState);
+            case OFF -> currentState.equalsIgnoreCase(onState) && newState.equalsIgnoreCase(offState);
+            case BOTH -> true;
         };
     }
 }
@@ -5,9 +5,12 @@ import com.arcanerelay.components.ArcaneTriggerBlock;
 import com.arcanerelay.config.Activation;
 import com.arcanerelay.config.ActivationContext;
 import com.arcanerelay.config.ActivationEffects;
+import com.arcanerelay.config.ActivationSnapshot;
+import com.arcanerelay.state.ArcaneState;
 import com.arcanerelay.systems.ArcaneTickSystem;
 import com.arcanerelay.util.BlockUtil;
 import com.hypixel.hytale.component.ComponentAccessor;
+import com.hypixel.hytale.component.ComponentType;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.component.Store;
@@ -20,13 +23,19 @@ import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.universe.world.SoundUtil;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 
+import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public final class ActivationExecutor {
 
+    /** Signal requests deferred by {@link #executeAll} on this thread, keyed by packed sender position. */
+    private static final ThreadLocal<Long2ObjectMap<ActivationContext>> DEFERRED_SIGNALS = new ThreadLocal<>();
+
     public static void execute(
         @Nonnull World world,
         @Nonnull Store<ChunkStore> store,
@@ -37,37 +46,154 @@ public final class ActivationExecutor {
         @Nonnull BlockType blockType,
         @Nonnull Activation activation,
         @Nonnull List<int[]> sources
+    ) {
+        ActivationContext ctx = createContext(world, store, chunk, blockX, blockY, blockZ, sources);
+        if (ctx == null) return;
+
+        run(activation, ctx);
+    }
+
+    /**
+     * Runs an activation on one block unless its Cooldown or Debounce holds it back. Every path that runs an
+     * activation (waves, chain members, area children) goes through here or {@link #runBatch}.
+     */
+    public static void run(@Nonnull Activation activation, @Nonnull ActivationContext ctx) {
+        if (!activation.isRateLimited() || tryActivate(activation, ctx, getState(ctx))) {
+            activation.execute(ctx);
+        }
+    }
+
+    /** Same as {@link #run} for a batch: drops the contexts that are rate limited, then calls executeBatch once. */
+    public static void runBatch(@Nonnull Activation activation, @Nonnull List<ActivationContext> batch) {
+        if (batch.isEmpty()) return;
+        if (!activation.isRateLimited()) {
+            activation.executeBatch(batch);
+            return;
+        }
+
+        ArcaneState state = getState(batch.getFirst());
+        List<ActivationContext> allowed = new ArrayList<>(batch.size());
+        for (ActivationContext ctx : batch) {
+            if (tryActivate(activation, ctx, state)) {
+                allowed.add(ctx);
+            }
+        }
+        if (!allowed.isEmpty()) {
+            activation.executeBatch(allowed);
+        }
+    }
+
+    private static boolean tryActivate(@Nonnull Activation activation, @Nonnull ActivationContext ctx, @Nullable ArcaneState state) {
+        if (state == null) return true;
+        return state.getCooldowns().tryActivate(activation.getId(), BlockUtil.pack(ctx.blockX(), ctx.blockY(), ctx.blockZ()),
+            state.getLastRunTick(), activation.getCooldown(), activation.getDebounce());
+    }
+
+    @Nullable
+    private static ArcaneState getState(@Nonnull ActivationContext ctx) {
+        return ctx.world().getChunkStore().getStore().getResource(ArcaneState.getResourceType());
+    }
+
+    /**
+     * Builds the context for activating the block at the given position, resolved to its main block
+     * (e.g. the door a filler block belongs to). Returns null when the main block cannot be found.
+     */
+    @Nullable
+    public static ActivationContext createContext(
+        @Nonnull World world,
+        @Nonnull Store<ChunkStore> store,
+        @Nonnull WorldChunk chunk,
+        int blockX,
+        int blockY,
+        int blockZ,
+        @Nonnull List<int[]> sources
+    ) {
+        return createContext(world, store, chunk, blockX, blockY, blockZ, sources,
+            ArcaneRelayPlugin.get().getActivationRegistry().getSnapshot());
+    }
+
+    /** Same as {@link #createContext(World, Store, WorldChunk, int, int, int, List)} for a wave's snapshot. */
+    @Nullable
+    public static ActivationContext createContext(
+        @Nonnull World world,
+        @Nonnull Store<ChunkStore> store,
+        @Nonnull WorldChunk chunk,
+        int blockX,
+        int blockY,
+        int blockZ,
+        @Nonnull List<int[]> sources,
+        @Nonnull ActivationSnapshot snapshot
     ) {
         int[] main = BlockUtil.findMainBlock(world, chunk, blockX, blockY, blockZ);
-        if (main == null) return;
+        if (main == null) return null;
 
         int mainX = main[0], mainY = main[1], mainZ = main[2];
         WorldChunk mainChunk = world.getChunk(ChunkUtil.indexChunkFromBlock(mainX, mainZ));
-        if (mainChunk == null) return;
+        if (mainChunk == null) return null;
 
-        BlockType mainBlockType = mainChunk.getBlockType(mainX, mainY, mainZ);
-        if (mainBlockType == null) return;
+        int mainBlockId = mainChunk.getBlock(mainX, mainY, mainZ);
+        BlockType mainBlockType = BlockType.getAssetMap().getAsset(mainBlockId);
+        if (mainBlockType == null) return null;
 
-        ActivationContext ctx = new ActivationContext(world, store, mainChunk, mainX, mainY, mainZ, mainBlockType, sources);
-        activation.execute(ctx);
+        return new ActivationContext(world, store, mainChunk, mainX, mainY, mainZ, mainBlockId, mainBlockType, sources, snapshot);
     }
 
-    public static void sendSignals(@Nonnull ActivationContext ctx) {
-        World world = ctx.world();
-        Store<ChunkStore> store = ctx.store();
-        WorldChunk chunk = ctx.chunk();
-        int blockX = ctx.blockX();
-        int blockY = ctx.blockY();
-        int blockZ = ctx.blockZ();
+    /**
+     * Runs several activations on the same context, sending each block's signals at most once at the end
+     * (e.g. a chain whose members each call {@link #sendSignals}).
+     */
+    public static void executeAll(@Nonnull Activation[] activations, @Nonnull ActivationContext ctx) {
+        if (DEFERRED_SIGNALS.get() != null) {
+            for (Activation activation : activations) {
+                run(activation, ctx);
+            }
+            return;
+        }
 
-        Ref<ChunkStore> blockRef = chunk.getBlockComponentEntity(blockX, blockY, blockZ);
-        if (blockRef == null) return;
+        Long2ObjectMap<ActivationContext> deferred = new Long2ObjectLinkedOpenHashMap<>();
+        DEFERRED_SIGNALS.set(deferred);
+        try {
+            for (Activation activation : activations) {
+                run(activation, ctx);
+            }
+        } finally {
+            DEFERRED_SIGNALS.remove();
+        }
 
-        ArcaneTriggerBlock trigger = store.getComponent(blockRef, ArcaneRelayPlugin.get().getArcaneTriggerBlockComponentType());
-        if (trigger == null) return;
+        for (ActivationContext signalCtx : deferred.values()) {
+            sendSignals(signalCtx);
+        }
+    }
 
-        for (Vector3i out : trigger.getOutputPositions()) {
-            ArcaneTickSystem.requestSignal(world, out.getX(), out.getY(), out.getZ(), blockX, blockY, blockZ);
+    public static void sendSignals(@Nonnull ActivationContext ctx) {
+        sendSignals(List.of(ctx));
+    }
+
+    /**
+     * Requests a signal to every output of each context's block. Inside {@link #executeAll} the requests are
+     * held back and sent once per block when it ends.
+     */
+    public static void sendSignals(@Nonnull List<ActivationContext> batch) {
+        Long2ObjectMap<ActivationContext> deferred = DEFERRED_SIGNALS.get();
+        ComponentType<ChunkStore, ArcaneTriggerBlock> triggerType = ArcaneTriggerBlock.getComponentType();
+        for (ActivationContext ctx : batch) {
+            int blockX = ctx.blockX();
+            int blockY = ctx.blockY();
+            int blockZ = ctx.blockZ();
+            if (deferred != null) {
+                deferred.putIfAbsent(BlockUtil.pack(blockX, blockY, blockZ), ctx);
+                continue;
+            }
+
+            Ref<ChunkStore> blockRef = ctx.chunk().getBlockComponentEntity(blockX, blockY, blockZ);
+            if (blockRef == null) continue;
+
+            ArcaneTriggerBlock trigger = ctx.store().getComponent(blockRef, triggerType);
+            if (trigger == null) continue;
+
+            for (Vector3i out : trigger.getOutputPositions()) {
+                ArcaneTickSystem.requestSignal(ctx.world(), out.getX(), out.getY(), out.getZ(), blockX, blockY, blockZ);
+            }
         }
     }
 
@@ -92,13 +218,23 @@ public final class ActivationExecutor {
         int blockZ,
         @Nullable ActivationEffects effects
     ) {
-        if (effects == null) return;
+        playSound(world, blockX, blockY, blockZ, resolveSoundIndex(effects));
+    }
+
+    /** Resolves the world sound of the given effects to a sound event index, or 0 if there is none. */
+    public static int resolveSoundIndex(@Nullable ActivationEffects effects) {
+        if (effects == null) return 0;
 
         String soundId = effects.getWorldSoundEventId();
-        if (soundId == null || soundId.isEmpty()) return;
+        if (soundId == null || soundId.isEmpty()) return 0;
 
         int soundIndex = SoundEvent.getAssetMap().getIndex(soundId);
-        if (soundIndex == Integer.MIN_VALUE || soundIndex == 0) return;
+        return soundIndex == Integer.MIN_VALUE ? 0 : soundIndex;
+    }
+
+    /** Plays a pre-resolved sound event (see {@link #resolveSoundIndex}) at the block centre. No-op for 0. */
+    public static void playSound(@Nonnull World world, int blockX, int blockY, int blockZ, int soundIndex) {
+        if (soundIndex == 0) return;
 
         double x = blockX + 0.5, y = blockY + 0.5, z = blockZ + 0.5;
         ComponentAccessor<EntityStore> accessor = world.getEntityStore().getStore();
@@ -3,8 +3,11 @@ package com.arcanerelay.core.activation;
 import com.arcanerelay.ArcaneRelayPlugin;
 import com.arcanerelay.components.ArcaneTriggerBlock;
 import com.arcanerelay.config.Activation;
+import com.arcanerelay.config.ActivationContext;
+import com.arcanerelay.config.ActivationSnapshot;
 import com.arcanerelay.state.ArcaneState;
 import com.arcanerelay.state.TriggerEntry;
+import com.arcanerelay.util.BlockUtil;
 import com.hypixel.hytale.assetstore.map.BlockTypeAssetMap;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
@@ -15,9 +18,11 @@ import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.universe.world.chunk.BlockComponentChunk;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -46,16 +51,33 @@ public final class ActivationWave {
                 info.activatorId = entry.activatorId();
         }
 
+        WaveBuffer.run(world, () -> runTargets(world, store, targets));
+    }
+
+    /**
+     * Groups the targets by activation, then runs one batch per activation. Each batch's contexts are built
+     * right before it runs, so they see the blocks as earlier batches left them; a target whose block was
+     * changed to one bound to a different activation runs that activation on its own. Targets of one batch
+     * that resolve to the same main block (e.g. both halves of a door) share a single context.
+     */
+    private static void runTargets(
+        @Nonnull World world,
+        @Nonnull Store<ChunkStore> store,
+        @Nonnull Map<Vector3i, TargetInfo> targets
+    ) {
+        ActivationSnapshot activations = ArcaneRelayPlugin.get().getActivationRegistry().getSnapshot();
         BlockTypeAssetMap<String, BlockType> blockTypeMap = BlockType.getAssetMap();
+        Map<Activation, List<PendingTarget>> batches = new LinkedHashMap<>();
         for (Map.Entry<Vector3i, TargetInfo> entry : targets.entrySet()) {
             int x = entry.getKey().x;
             int y = entry.getKey().y;
             int z = entry.getKey().z;
             TargetInfo info = entry.getValue();
 
-           
             long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
             WorldChunk chunk = world.getChunk(chunkIndex);
+            if (chunk == null) continue;
+
             Ref<ChunkStore> chunkRef = chunk.getReference();
             BlockComponentChunk blockComponentChunk = store.getComponent(chunkRef, BlockComponentChunk.getComponentType());
             if (blockComponentChunk == null) continue;
@@ -77,39 +99,75 @@ public final class ActivationWave {
                 continue;
             } 
 
-            List<int[]> sourcesAsInts = new ArrayList<>(info.sources.size());
-            for (Vector3i s : info.sources) {
-                sourcesAsInts.add(new int[] { s.getX(), s.getY(), s.getZ() });
+            Activation activation = resolveActivation(activations, x, y, z, blockId, blockType, info.activatorId);
+            if (activation == null) continue;
+
+            batches.computeIfAbsent(activation, k -> new ArrayList<>()).add(new PendingTarget(x, y, z, blockId, info));
+        }
+
+        for (Map.Entry<Activation, List<PendingTarget>> batch : batches.entrySet()) {
+            Activation activation = batch.getKey();
+            List<ActivationContext> contexts = new ArrayList<>(batch.getValue().size());
+            Long2IntOpenHashMap contextByMainBlock = new Long2IntOpenHashMap();
+            contextByMainBlock.defaultReturnValue(-1);
+            for (PendingTarget target : batch.getValue()) {
+                WorldChunk chunk = world.getChunk(ChunkUtil.indexChunkFromBlock(target.x, target.z));
+                if (chunk == null) continue;
+
+                // The first context of a block would leave the block ID of any later one stale once it runs.
+                int[] main = BlockUtil.findMainBlock(world, chunk, target.x, target.y, target.z);
+                if (main == null) continue;
+                int existing = contextByMainBlock.get(BlockUtil.pack(main[0], main[1], main[2]));
+                if (existing >= 0) {
+                    contexts.get(existing).sources().addAll(target.sources());
+                    continue;
+                }
+
+                ActivationContext ctx = ActivationExecutor.createContext(world, store, chunk, target.x, target.y, target.z,
+                    target.sources(), activations);
+                if (ctx == null) continue;
+
+                int blockId = chunk.getBlock(target.x, target.y, target.z);
+                if (blockId != target.blockId) {
+                    BlockType blockType = blockTypeMap.getAsset(blockId);
+                    Activation current = blockType != null
+                        ? resolveActivation(activations, target.x, target.y, target.z, blockId, blockType, target.info.activatorId)
+                        : null;
+                    if (current != activation) {
+                        if (current != null) {
+                            ActivationExecutor.run(current, ctx);
+                        }
+                        continue;
+                    }
+                }
+                contextByMainBlock.put(BlockUtil.pack(main[0], main[1], main[2]), contexts.size());
+                contexts.add(ctx);
             }
 
-            activateOutput(world, store, chunk, x, y, z, blockId, blockType, sourcesAsInts, info.activatorId);
+            ActivationExecutor.runBatch(activation, contexts);
         }
     }
 
-    public static void activateOutput(
-        @Nonnull World world,
-        @Nonnull Store<ChunkStore> store,
-        @Nonnull WorldChunk chunk,
+    @Nullable
+    private static Activation resolveActivation(
+        @Nonnull ActivationSnapshot activations,
         int blockX,
         int blockY,
         int blockZ,
         int blockId,
         @Nonnull BlockType blockType,
-        @Nonnull List<int[]> sources,
         @Nullable String activatorId
     ) {
         String blockTypeKey = blockType.getId();
         Activation activation = activatorId != null && !activatorId.isEmpty()
-            ? ArcaneRelayPlugin.get().getActivationRegistry().getActivation(activatorId)
-            : ArcaneRelayPlugin.get().getActivationRegistry().getActivationForBlock(blockTypeKey);
-        
-        if (activation != null) {
-            ActivationExecutor.execute(world, store, chunk, blockX, blockY, blockZ, blockType, activation, sources);
-            return;
-        }
+            ? activations.getActivation(activatorId)
+            : activations.getActivationForBlock(blockId, blockTypeKey);
 
-        ArcaneRelayPlugin.get().getLogger().atWarning().log("ActivationWave: no activation for block: "
-            + blockX + ", " + blockY + ", " + blockZ + " key: " + blockTypeKey);
+        if (activation == null) {
+            ArcaneRelayPlugin.get().getLogger().atWarning().log("ActivationWave: no activation for block: "
+                + blockX + ", " + blockY + ", " + blockZ + " key: " + blockTypeKey);
+        }
+        return activation;
     }
 
     private static void propagateOnly(
@@ -133,6 +191,18 @@ public final class ActivationWave {
         }
     }
 
+    /** A target grouped under its activation, with the block ID it had when it was grouped. */
+    private record PendingTarget(int x, int y, int z, int blockId, @Nonnull TargetInfo info) {
+        @Nonnull
+        List<int[]> sources() {
+            List<int[]> sources = new ArrayList<>(info.sources.size());
+            for (Vector3i s : info.sources) {
+                sources.add(new int[] { s.getX(), s.getY(), s.getZ() });
+            }
+            return sources;
+        }
+    }
+
     private static final class TargetInfo {
         final List<Vector3i> sources = new ArrayList<>();
         boolean skip;
@@ -0,0 +1,155 @@
+package com.arcanerelay.core.activation;
+
+import com.arcanerelay.util.BlockUtil;
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * World updates collected while an activation wave runs on this thread and sent once when it ends.
+ * Outside of a wave (e.g. an interaction activating a block directly) everything goes straight to the world.
+ */
+public final class WaveBuffer {
+
+    private static final ThreadLocal<WaveBuffer> CURRENT = new ThreadLocal<>();
+
+    private final World world;
+    /** Packed positions ({@link BlockUtil#pack}) that need a block update, in request order. */
+    private final LongLinkedOpenHashSet blockUpdates = new LongLinkedOpenHashSet();
+    /** Chunks whose blocks changed state during this wave and still need a notification. */
+    private final LongLinkedOpenHashSet changedChunks = new LongLinkedOpenHashSet();
+
+    private WaveBuffer(@Nonnull World world) {
+        this.world = world;
+    }
+
+    /**
+     * Runs {@code body} with a buffer open for {@code world} on this thread, then applies what it collected,
+     * even if {@code body} throws: blocks written before the failure still get their notifications and updates.
+     * A nested call joins the buffer that is already open.
+     */
+    public static void run(@Nonnull World world, @Nonnull Runnable body) {
+        if (CURRENT.get() != null) {
+            body.run();
+            return;
+        }
+
+        WaveBuffer buffer = new WaveBuffer(world);
+        CURRENT.set(buffer);
+        try {
+            body.run();
+        } finally {
+            CURRENT.remove();
+            buffer.flush();
+        }
+    }
+
+    /** The buffer open for {@code world} on this thread, or null outside of a wave. */
+    @Nullable
+    static WaveBuffer current(@Nonnull World world) {
+        WaveBuffer buffer = CURRENT.get();
+        return buffer != null && buffer.world == world ? buffer : null;
+    }
+
+    /** Same as {@link World#performBlockUpdate}, but each position is updated at most once per wave. */
+    public static void performBlockUpdate(@Nonnull World world, int x, int y, int z) {
+        WaveBuffer buffer = current(world);
+        if (buffer == null) {
+            world.performBlockUpdate(x, y, z);
+            return;
+        }
+        buffer.blockUpdates.add(BlockUtil.pack(x, y, z));
+    }
+
+    /**
+     * Same as {@link World#setBlockInteractionState}, but during a wave the chunk notification is held back and
+     * sent once per chunk when the wave ends. The block itself is written right away, keeping its rotation,
+     * filler and block state, so later activations in the wave see the new state.
+     */
+    public static void setBlockInteractionState(
+        @Nonnull World world,
+        int x, int y, int z,
+        @Nonnull BlockType blockType,
+        @Nonnull String state
+    ) {
+        BlockType newBlockType = current(world) != null ? blockType.getBlockForState(state) : null;
+        int newBlockId = newBlockType != null ? BlockType.getAssetMap().getIndex(newBlockType.getId()) : -1;
+        setBlockInteractionState(world, x, y, z, blockType, state, newBlockId, newBlockType);
+    }
+
+    /**
+     * Same as {@link #setBlockInteractionState(World, int, int, int, BlockType, String)} with the block of the
+     * new state already resolved, for callers that cache it per block type. {@code newBlockId} is -1 and
+     * {@code newBlockType} null when the state has no block of its own.
+     */
+    public static void setBlockInteractionState(
+        @Nonnull World world,
+        int x, int y, int z,
+        @Nonnull BlockType blockType,
+        @Nonnull String state,
+        int newBlockId,
+        @Nullable BlockType newBlockType
+    ) {
+        WaveBuffer buffer = current(world);
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+        WorldChunk chunk = buffer != null && newBlockType != null && newBlockId >= 0 ? world.getChunk(chunkIndex) : null;
+        if (chunk == null) {
+            world.setBlockInteractionState(new Vector3i(x, y, z), blockType, state);
+            return;
+        }
+        if (chunk.getBlock(x, y, z) == newBlockId) return;
+
+        // setBlock drops the block's state, so a copy of it is put back (as block movement does).
+        Holder<ChunkStore> holder = chunk.getBlockComponentHolder(x, y, z);
+        if (holder != null) holder = holder.clone();
+        chunk.setBlock(x, y, z, newBlockId, newBlockType, chunk.getRotationIndex(x, y, z), chunk.getFiller(x, y, z), 4);
+        if (holder != null) {
+            chunk.setState(x, y, z, holder);
+        }
+        buffer.changedChunks.add(chunkIndex);
+    }
+
+    private void flush() {
+        flushChunkNotifications();
+        flushBlockUpdates();
+    }
+
+    /** Notifies each chunk that had state changes once (same approach as block movement). */
+    private void flushChunkNotifications() {
+        for (long chunkIndex : changedChunks) {
+            world.getNotificationHandler().updateChunk(chunkIndex);
+        }
+    }
+
+    /** Runs the collected block updates chunk by chunk, skipping chunks that were unloaded meanwhile. */
+    private void flushBlockUpdates() {
+        if (blockUpdates.isEmpty()) return;
+
+        Long2ObjectMap<LongArrayList> byChunk = new Long2ObjectLinkedOpenHashMap<>();
+        for (long packed : blockUpdates) {
+            long chunkIndex = ChunkUtil.indexChunkFromBlock(BlockUtil.unpackX(packed), BlockUtil.unpackZ(packed));
+            byChunk.computeIfAbsent(chunkIndex, k -> new LongArrayList()).add(packed);
+        }
+
+        for (Long2ObjectMap.Entry<LongArrayList> chunkUpdates : byChunk.long2ObjectEntrySet()) {
+            if (world.getChunk(chunkUpdates.getLongKey()) == null) continue;
+
+            LongArrayList positions = chunkUpdates.getValue();
+            for (int i = 0; i < positions.size(); i++) {
+                long packed = positions.getLong(i);
+                world.performBlockUpdate(BlockUtil.unpackX(packed), BlockUtil.unpackY(packed), BlockUtil.unpackZ(packed));
+            }
+        }
+    }
+}
@@ -1,125 +1,253 @@
 package com.arcanerelay.core.blockmovement;
 
+import com.arcanerelay.ArcaneRelayPlugin;
 import com.arcanerelay.state.ArcaneMoveState.MoveEntry;
-import com.hypixel.hytale.component.Store;
+import com.arcanerelay.util.BlockUtil;
 import com.hypixel.hytale.math.util.ChunkUtil;
-import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.server.core.universe.world.World;
-import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
 import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
-import com.hypixel.hytale.server.core.universe.world.chunk.section.BlockSection;
-import com.hypixel.hytale.server.core.universe.world.chunk.section.FluidSection;
-import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import it.unimi.dsi.fastutil.longs.LongSet;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
- * Executes block moves from a map of move entries: builds execution order via
- * {@link BlockMovementGraph}, then breaks/sets blocks and invalidates lighting.
+ * Executes block moves from a list of move entries: resolves collisions via
+ * {@link BlockMovementGraph}, then breaks/sets blocks section by section and
+ * invalidates lighting.
  */
 public final class BlockMovementExecutor {
 
     private BlockMovementExecutor() { }
 
+    /** Sections per chunk column; light is only invalidated in sections that exist. */
+    private static final int SECTION_COUNT = ChunkUtil.HEIGHT >> 5;
+
     /**
-     * Runs all moves for the given move entries: computes order, breaks source
-     * blocks and sets destination blocks, then invalidates light and notifies
-     * chunks for all affected chunks.
+     * Runs all moves for the given move entries: resolves collisions, then applies
+     * every break and set of the wave in a single world task, and finally
+     * invalidates light in the sections that changed and notifies their chunks.
+     * Each component of the plan is all or nothing: it is skipped if a chunk it
+     * touches is not loaded, and rolled back if a write fails partway. A pusher's
+     * follow-up (entities riding its blocks, its effects) only runs once its
+     * component committed; a pusher that queued no moves (an empty chain) has its
+     * follow-up run at the start of the task, whatever happens to the other moves.
      */
     public static void execute(
             @Nonnull World world,
-            @Nonnull Map<Vector3i, MoveEntry> moveEntries) {
-        if (moveEntries.isEmpty())
-            return;
+            @Nonnull List<MoveEntry> moveEntries,
+            @Nonnull Long2ObjectMap<Runnable> followUps) {
+        LongOpenHashSet pushersWithMoves = new LongOpenHashSet();
+        for (MoveEntry moveEntry : moveEntries) pushersWithMoves.add(moveEntry.pusher);
+        List<Runnable> immediate = new ArrayList<>();
+        for (Long2ObjectMap.Entry<Runnable> followUp : followUps.long2ObjectEntrySet()) {
+            if (!pushersWithMoves.contains(followUp.getLongKey())) immediate.add(followUp.getValue());
+        }
 
-        List<List<Vector3i>> executionOrder = BlockMovementGraph.getExecutionOrder(moveEntries);
-        Map<Vector3i, List<Vector3i>> targetPositionGraph = BlockMovementGraph.buildTargetPositionGraph(moveEntries);
-
-        LongSet dirtyChunks = new LongOpenHashSet();
-        for (List<Vector3i> step : executionOrder) {
-            for (Vector3i blockPosition : step) {
-                MoveEntry moveEntry = moveEntries.get(blockPosition);
-                if (moveEntry == null)
-                    continue;
-
-                int tx = blockPosition.x + moveEntry.moveDirection.x;
-                int ty = blockPosition.y + moveEntry.moveDirection.y;
-                int tz = blockPosition.z + moveEntry.moveDirection.z;
-
-                long futureChunkIndex = ChunkUtil.indexChunkFromBlock(tx, tz);
-                WorldChunk futureChunk = world.getChunk(futureChunkIndex);
-                if (futureChunk == null)
-                    continue;
-
-                long fromChunkIndex = ChunkUtil.indexChunkFromBlock(blockPosition.x, blockPosition.z);
-                WorldChunk fromChunk = world.getChunk(fromChunkIndex);
-                if (fromChunk == null)
-                    continue;
-
-                world.execute(() -> {
-                    List<Vector3i> targetsAtSource = targetPositionGraph.get(blockPosition);
-                    boolean noOneMovingHere = targetsAtSource == null || targetsAtSource.isEmpty();
-                    if (noOneMovingHere) {
-
-                        int settings = 0;
-                        fromChunk.breakBlock(
-                            blockPosition.x,
-                            blockPosition.y,
-                            blockPosition.z,
-                            moveEntry.blockFiller,
-                            4 | 2048); // set empty // naturally removed? // drop item??
-                        dirtyChunks.add(fromChunkIndex);
-                    }
+        BlockMovementGraph.Plan plan = moveEntries.isEmpty() ? null : BlockMovementGraph.plan(moveEntries);
+        boolean hasMoves = plan != null && plan.count() > 0;
+        if (!hasMoves && immediate.isEmpty())
+            return;
 
-                    futureChunk.setBlock(
-                        tx, ty, tz,
-                        moveEntry.blockId,
-                        moveEntry.blockType,
-                        moveEntry.blockRotation,
-                        moveEntry.blockFiller,
-                        4); // 
+        world.execute(() -> {
+            for (Runnable followUp : immediate) followUp.run();
+            if (hasMoves) applyMoves(world, plan, followUps);
+        });
+    }
 
-                    futureChunk.setState(tx, ty, tz, moveEntry.componentHolder);
+    private static void applyMoves(
+            @Nonnull World world,
+            @Nonnull BlockMovementGraph.Plan plan,
+            @Nonnull Long2ObjectMap<Runnable> followUps) {
+        MoveEntry[] entries = plan.entries();
+        long[] sources = plan.sources();
+        long[] targets = plan.targets();
+        boolean[] vacates = plan.vacates();
+        int[] landsOn = plan.landsOn();
+        int[] componentStarts = plan.componentStarts();
+        int count = plan.count();
+
+        // Chunk references are held for the rest of this task; chunks only unload between world tasks.
+        Long2ObjectOpenHashMap<WorldChunk> chunks = new Long2ObjectOpenHashMap<>();
+        LongOpenHashSet writtenChunks = new LongOpenHashSet();
+        // Per chunk, a bitmask of the sections (by index, 32 blocks tall) whose light must be recomputed.
+        Long2IntOpenHashMap dirtySections = new Long2IntOpenHashMap();
+        TickingMarks tickingMarks = new TickingMarks();
+        LongOpenHashSet movedPushers = new LongOpenHashSet();
+        // Write op 2i empties the source of move i, 2i + 1 fills its target.
+        int[] ops = new int[count * 2];
+        long[] opSections = new long[count * 2];
+
+        components:
+        for (int c = 0; c < plan.componentCount(); c++) {
+            int from = componentStarts[c], to = componentStarts[c + 1];
+
+            // Every chunk the component touches must be loaded before anything of it is written.
+            for (int i = from; i < to; i++) {
+                if (!resolveChunk(world, chunks, sources[i]) || !resolveChunk(world, chunks, targets[i])) {
+                    ArcaneRelayPlugin.get().getLogger().atInfo().log("BlockMovement: skipping " + (to - from)
+                        + " linked moves, a chunk they touch is not loaded");
+                    continue components;
+                }
+            }
 
-                    dirtyChunks.add(futureChunkIndex);
+            // No cell is both emptied and filled, and every target has a single move, so the ops can run in any
+            // order: group them by section so each section's chunk and light bits are handled once per run
+            // instead of per block.
+            int opCount = 0;
+            for (int i = from; i < to; i++) {
+                if (vacates[i]) {
+                    ops[opCount++] = 2 * i;
+                    opSections[2 * i] = sectionOf(sources[i]);
+                }
+                ops[opCount++] = 2 * i + 1;
+                opSections[2 * i + 1] = sectionOf(targets[i]);
+            }
+            IntArrays.quickSort(ops, 0, opCount, (a, b) -> Long.compare(opSections[a], opSections[b]));
+
+            MoveJournal journal = new MoveJournal(opCount);
+            try {
+                int runStart = 0;
+                while (runStart < opCount) {
+                    long section = opSections[ops[runStart]];
+                    int runEnd = runStart + 1;
+                    while (runEnd < opCount && opSections[ops[runEnd]] == section) runEnd++;
+
+                    int baseX = BlockUtil.unpackX(section) << 5, baseY = BlockUtil.unpackY(section) << 5, baseZ = BlockUtil.unpackZ(section) << 5;
+                    long chunkIndex = ChunkUtil.indexChunkFromBlock(baseX, baseZ);
+                    WorldChunk chunk = chunks.get(chunkIndex);
+                    writtenChunks.add(chunkIndex);
+                    markLightColumn(dirtySections, chunkIndex, baseY >> 5);
+                    for (int k = runStart; k < runEnd; k++) {
+                        int op = ops[k];
+                        int move = op >> 1;
+                        MoveEntry moveEntry = entries[move];
+                        long cell;
+                        if ((op & 1) == 0) {
+                            cell = sources[move];
+                            journal.record(cell, moveEntry);
+                            vacate(chunk, cell, moveEntry);
+                        } else {
+                            cell = targets[move];
+                            journal.record(cell, landsOn[move] >= 0 ? entries[landsOn[move]] : null);
+                            fill(chunk, cell, moveEntry);
+                        }
+                        markLightAcrossEdges(dirtySections, cell);
+                    }
+                    runStart = runEnd;
+                }
+            } catch (RuntimeException e) {
+                ArcaneRelayPlugin.get().getLogger().atSevere().withCause(e).log("BlockMovement: " + (to - from)
+                    + " linked moves failed; rolling them back");
+                journal.rollback(chunks);
+                continue;
+            }
 
-                    setBlockAndNeighboursTicking(world, fromChunk, blockPosition);
-                });
+            // Sources and targets are only adjacent for single-cell moves, so both neighbourhoods are marked.
+            for (int i = from; i < to; i++) {
+                tickingMarks.markWithNeighbours(BlockUtil.unpackX(sources[i]), BlockUtil.unpackY(sources[i]), BlockUtil.unpackZ(sources[i]));
+                tickingMarks.markWithNeighbours(BlockUtil.unpackX(targets[i]), BlockUtil.unpackY(targets[i]), BlockUtil.unpackZ(targets[i]));
+                long pusher = entries[i].pusher;
+                Runnable followUp = followUps.get(pusher);
+                if (followUp != null && movedPushers.add(pusher)) {
+                    followUp.run();
+                }
             }
         }
+        tickingMarks.flush(world);
+
+        for (Long2IntMap.Entry dirty : dirtySections.long2IntEntrySet()) {
+            // Neighbouring chunks that only need relighting are not in the wave's chunk set.
+            WorldChunk chunk = chunks.get(dirty.getLongKey());
+            if (chunk == null)
+                chunk = world.getChunk(dirty.getLongKey());
+            if (chunk == null)
+                continue;
+
+            for (int sections = dirty.getIntValue(); sections != 0; sections &= sections - 1) {
+                world.getChunkLighting().invalidateLightInChunkSection(chunk, Integer.numberOfTrailingZeros(sections));
+            }
+        }
+        writtenChunks.forEach(idx -> world.getNotificationHandler().updateChunk(idx));
+    }
 
-        world.execute(() ->{
-            dirtyChunks.forEach(idx -> world.getChunkLighting().invalidateLightInChunk(world.getChunk(idx)));
-            dirtyChunks.forEach(idx -> world.getNotificationHandler().updateChunk(idx));
-        });
+    /** Empties the source cell of a move. */
+    private static void vacate(@Nonnull WorldChunk chunk, long source, @Nonnull MoveEntry moveEntry) {
+        int x = BlockUtil.unpackX(source), y = BlockUtil.unpackY(source), z = BlockUtil.unpackZ(source);
+        chunk.breakBlock(x, y, z, moveEntry.blockFiller,
+            4 | 2048); // set empty // naturally removed? // drop item??
     }
 
-    private static void setBlockAndNeighboursTicking(World world, WorldChunk chunk, Vector3i blockPosition) {
-        for (int x = -1; x <= 1; x++) {
-            for (int y = -1; y <= 1; y++) {
-                for (int z = -1; z <= 1; z++) {
-                    if (!ChunkUtil.isSameChunkSection(blockPosition.x, blockPosition.y, blockPosition.z, blockPosition.x + x,blockPosition.y + y, blockPosition.z + z)) {
-                        Store<ChunkStore> store= world.getChunkStore().getStore();
-                        long fromChunkIndex = ChunkUtil.indexChunkFromBlock(blockPosition.x, blockPosition.z);
-                        WorldChunk newChunk = world.getChunk(fromChunkIndex);
-                        BlockChunk blockChunkComponent = store.getComponent(newChunk.getReference(), BlockChunk.getComponentType());
-                        BlockSection section = blockChunkComponent.getSectionAtBlockY(blockPosition.y + y);
-                        section.setTicking(blockPosition.x + x, blockPosition.y + y, blockPosition.z + z, true);
-                        continue;
-                    }
-                    
-                    Store<ChunkStore> store= world.getChunkStore().getStore();
-                    BlockChunk blockChunkComponent = store.getComponent(chunk.getReference(), BlockChunk.getComponentType());
-                    BlockSection section = blockChunkComponent.getSectionAtBlockY(blockPosition.y + y);
-                
-                    section.setTicking(blockPosition.x + x, blockPosition.y + y, blockPosition.z + z, true);
-                }
-            }
-        }
+    /** Writes the moved block and its state into the target cell. */
+    private static void fill(@Nonnull WorldChunk chunk, long target, @Nonnull MoveEntry moveEntry) {
+        int x = BlockUtil.unpackX(target), y = BlockUtil.unpackY(target), z = BlockUtil.unpackZ(target);
+        chunk.setBlock(x, y, z,
+            moveEntry.blockId,
+            moveEntry.blockType,
+            moveEntry.blockRotation,
+            moveEntry.blockFiller,
+            4);
+        chunk.setState(x, y, z, moveEntry.componentHolder);
+    }
+
+    /** Adds the chunk holding the packed position to {@code chunks}; false if it is not loaded. */
+    private static boolean resolveChunk(@Nonnull World world, @Nonnull Long2ObjectOpenHashMap<WorldChunk> chunks, long packed) {
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(BlockUtil.unpackX(packed), BlockUtil.unpackZ(packed));
+        if (chunks.containsKey(chunkIndex))
+            return true;
+
+        WorldChunk chunk = world.getChunk(chunkIndex);
+        if (chunk == null)
+            return false;
+        chunks.put(chunkIndex, chunk);
+        return true;
+    }
+
+    private static long sectionOf(long packed) {
+        return BlockUtil.pack(BlockUtil.unpackX(packed) >> 5, BlockUtil.unpackY(packed) >> 5, BlockUtil.unpackZ(packed) >> 5);
+    }
+
+    /**
+     * Marks a written section and every section below it in the same chunk: a block that changes opacity
+     * changes the skylight reaching everything underneath.
+     */
+    private static void markLightColumn(@Nonnull Long2IntOpenHashMap dirtySections, long chunkIndex, int section) {
+        if (section < 0 || section >= SECTION_COUNT)
+            return;
+        addDirtySections(dirtySections, chunkIndex, (int) ((2L << section) - 1));
+    }
+
+    /**
+     * Light spreads across section and chunk borders, so a cell on the face of its section also dirties the
+     * section on the other side of that face.
+     */
+    private static void markLightAcrossEdges(@Nonnull Long2IntOpenHashMap dirtySections, long cell) {
+        int x = BlockUtil.unpackX(cell), y = BlockUtil.unpackY(cell), z = BlockUtil.unpackZ(cell);
+        int section = y >> 5;
+        if (section < 0 || section >= SECTION_COUNT)
+            return;
+
+        int bit = 1 << section;
+        if ((y & 31) == 31 && section < SECTION_COUNT - 1)
+            addDirtySections(dirtySections, ChunkUtil.indexChunkFromBlock(x, z), bit << 1);
+        if ((x & 31) == 0)
+            addDirtySections(dirtySections, ChunkUtil.indexChunkFromBlock(x - 1, z), bit);
+        if ((x & 31) == 31)
+            addDirtySections(dirtySections, ChunkUtil.indexChunkFromBlock(x + 1, z), bit);
+        if ((z & 31) == 0)
+            addDirtySections(dirtySections, ChunkUtil.indexChunkFromBlock(x, z - 1), bit);
+        if ((z & 31) == 31)
+            addDirtySections(dirtySections, ChunkUtil.indexChunkFromBlock(x, z + 1), bit);
+    }
+
+    private static void addDirtySections(@Nonnull Long2IntOpenHashMap dirtySections, long chunkIndex, int sections) {
+        dirtySections.put(chunkIndex, dirtySections.get(chunkIndex) | sections);
     }
 }
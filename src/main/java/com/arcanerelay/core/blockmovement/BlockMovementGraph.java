@@ -1,156 +1,231 @@
 package com.arcanerelay.core.blockmovement;
 
 import com.arcanerelay.state.ArcaneMoveState.MoveEntry;
+import com.arcanerelay.util.BlockUtil;
 import com.hypixel.hytale.math.vector.Vector3i;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 /**
- * Builds dependency and target-position graphs from move entries and computes
- * a topologically-ordered execution plan (collision-free steps).
+ * Builds the dependency and target-position graphs from move entries, once per
+ * wave, over packed positions ({@link BlockUtil#pack}) and int adjacency arrays,
+ * resolves collisions into the set of moves that run, and groups those moves
+ * into components that must be applied together.
  */
 public final class BlockMovementGraph {
 
     private BlockMovementGraph() {}
 
     /**
-     * Builds the dependency graph and target-position graph from move entries,
-     * then returns an execution order: list of steps, each step is a list of
-     * block positions that can be moved in parallel (no collisions).
+     * Moves of one wave that survived collision resolution. Every target has a single move and no emptied
+     * source is also a target, so the writes can be applied in any order.
+     *
+     * @param entries          move entry per move
+     * @param sources          packed source position per move
+     * @param targets          packed target position per move
+     * @param vacates          whether the source is left empty (no other move targets it)
+     * @param landsOn          index of the move whose source is this move's target, or -1 when the target is empty
+     * @param componentStarts  index of the first move of each component, followed by {@code count}; a component
+     *                         is the moves of one or more pushers linked by landing in each other's cells
+     * @param count            number of moves
      */
-    @Nonnull
-    public static List<List<Vector3i>> getExecutionOrder(
-            @Nonnull Map<Vector3i, MoveEntry> moveEntries) {
-        Map<Vector3i, List<Vector3i>> graph = buildDependencyGraph(moveEntries);
-        Map<Vector3i, List<Vector3i>> targetPositionGraph = buildTargetPositionGraph(moveEntries);
-        return simplifyByCollisions(graph, targetPositionGraph, moveEntries);
+    public record Plan(
+        @Nonnull MoveEntry[] entries,
+        @Nonnull long[] sources,
+        @Nonnull long[] targets,
+        @Nonnull boolean[] vacates,
+        @Nonnull int[] landsOn,
+        @Nonnull int[] componentStarts,
+        int count
+    ) {
+        public int componentCount() {
+            return componentStarts.length - 1;
+        }
     }
 
     /**
-     * Dependency graph: key = block position, value = list of positions that
-     * depend on key (must move after key).
+     * Resolves the moves of one wave. When several blocks move to the same target,
+     * or several pushers claim the same block, the earliest enqueued move wins.
+     * A pusher that loses any claim loses all of its moves, so no chain is left
+     * half moved, and the moves queued behind a dropped move stay put as well.
+     * The surviving moves are grouped so that a move, the move whose cell it
+     * lands in and the other moves of the same pusher share a component.
+     * <p>
+     * No execution order is computed. Ordering (and the layering that used to
+     * provide it) only matters when a block is written into a cell another move
+     * still has to empty; here a source that is also a kept target is never
+     * emptied, so the writes commute. Every pass is a loop over flat arrays with
+     * no recursion, linear in the number of moves, so walls and machines of tens
+     * of thousands of blocks plan without stack depth limits.
      */
     @Nonnull
-    public static Map<Vector3i, List<Vector3i>> buildDependencyGraph(
-            @Nonnull Map<Vector3i, MoveEntry> moveEntries) {
-        Map<Vector3i, List<Vector3i>> graph = new HashMap<>();
-
-        for (Map.Entry<Vector3i, MoveEntry> entry : moveEntries.entrySet()) {
-            Vector3i blockPosition = entry.getKey();
-            MoveEntry moveEntry = entry.getValue();
-            if (!graph.containsKey(moveEntry.blockPosition)) {
-                graph.put(moveEntry.blockPosition, new ArrayList<>());
+    public static Plan plan(@Nonnull List<MoveEntry> moveEntries) {
+        int n = moveEntries.size();
+        MoveEntry[] entries = new MoveEntry[n];
+        long[] sources = new long[n];
+        long[] targets = new long[n];
+
+        // One claim per source: the earliest enqueued move of the block.
+        Long2IntOpenHashMap sourceIndex = new Long2IntOpenHashMap(n);
+        sourceIndex.defaultReturnValue(-1);
+        // samePusher[i]: the previous move of the same pusher, or -1; lastOfPusher heads each pusher's list.
+        int[] samePusher = new int[n];
+        Long2IntOpenHashMap lastOfPusher = new Long2IntOpenHashMap();
+        lastOfPusher.defaultReturnValue(-1);
+
+        int i;
+        for (i = 0; i < n; i++) {
+            MoveEntry moveEntry = moveEntries.get(i);
+            Vector3i p = moveEntry.blockPosition;
+            entries[i] = moveEntry;
+            sources[i] = BlockUtil.pack(p.x, p.y, p.z);
+            targets[i] = BlockUtil.pack(
+                p.x + moveEntry.moveDirection.x,
+                p.y + moveEntry.moveDirection.y,
+                p.z + moveEntry.moveDirection.z);
+            int current = sourceIndex.get(sources[i]);
+            if (current < 0 || winsOver(entries, sources, i, current)) {
+                sourceIndex.put(sources[i], i);
             }
+            samePusher[i] = lastOfPusher.put(moveEntry.pusher, i);
         }
 
-        for (Map.Entry<Vector3i, MoveEntry> entry : moveEntries.entrySet()) {
-            Vector3i blockPosition = entry.getKey();
-            MoveEntry moveEntry = entry.getValue();
-            Vector3i dependentBlockPosition = targetPosition(blockPosition, moveEntry);
-            graph.computeIfAbsent(dependentBlockPosition, k -> new ArrayList<>()).add(blockPosition);
+        // next[i]: the move whose source cell move i lands in, or -1.
+        int[] next = new int[n];
+        int[] dependentCount = new int[n + 1];
+        for (i = 0; i < n; i++) {
+            next[i] = sourceIndex.get(targets[i]);
+            if (next[i] >= 0) dependentCount[next[i] + 1]++;
         }
 
-        return graph;
-    }
+        // Dependents of move j (moves landing in j's source) as a CSR adjacency: dependents[start[j] .. start[j + 1]).
+        int[] start = dependentCount;
+        for (i = 0; i < n; i++) start[i + 1] += start[i];
+        int[] dependents = new int[start[n]];
+        int[] fill = new int[n];
+        for (i = 0; i < n; i++) {
+            if (next[i] >= 0) dependents[start[next[i]] + fill[next[i]]++] = i;
+        }
 
-    /**
-     * Target position graph: key = target position (where a block moves to),
-     * value = list of source block positions that move to that target.
-     */
-    @Nonnull
-    public static Map<Vector3i, List<Vector3i>> buildTargetPositionGraph(
-            @Nonnull Map<Vector3i, MoveEntry> moveEntries) {
-        Map<Vector3i, List<Vector3i>> targetPositionGraph = new HashMap<>();
-        for (Map.Entry<Vector3i, MoveEntry> entry : moveEntries.entrySet()) {
-            Vector3i blockPosition = entry.getKey();
-            MoveEntry moveEntry = entry.getValue();
-            Vector3i target = targetPosition(blockPosition, moveEntry);
-            targetPositionGraph.computeIfAbsent(target, k -> new ArrayList<>()).add(blockPosition);
+        // One winner per target: the earliest enqueued move, then the lowest source position. Losers of a target or
+        // of a source are dropped with every other move of their pusher, and so is every move waiting for a dropped
+        // move to vacate its cell.
+        Long2IntOpenHashMap winners = new Long2IntOpenHashMap(n);
+        winners.defaultReturnValue(-1);
+        for (i = 0; i < n; i++) {
+            int current = winners.get(targets[i]);
+            if (current < 0 || winsOver(entries, sources, i, current)) {
+                winners.put(targets[i], i);
+            }
         }
 
-        return targetPositionGraph;
-    }
+        boolean[] dropped = new boolean[n];
+        LongOpenHashSet droppedPushers = new LongOpenHashSet();
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for (i = 0; i < n; i++) {
+            if (winners.get(targets[i]) != i || sourceIndex.get(sources[i]) != i) {
+                dropped[i] = true;
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int j = queue[head++];
+            for (int d = start[j]; d < start[j + 1]; d++) {
+                int dependent = dependents[d];
+                if (!dropped[dependent]) {
+                    dropped[dependent] = true;
+                    queue[tail++] = dependent;
+                }
+            }
+            if (droppedPushers.add(entries[j].pusher)) {
+                for (int m = lastOfPusher.get(entries[j].pusher); m >= 0; m = samePusher[m]) {
+                    if (!dropped[m]) {
+                        dropped[m] = true;
+                        queue[tail++] = m;
+                    }
+                }
+            }
+        }
 
-    @Nonnull
-    static Vector3i targetPosition(@Nonnull Vector3i blockPosition, @Nonnull MoveEntry moveEntry) {
-        return new Vector3i(
-            blockPosition.x + moveEntry.moveDirection.x,
-            blockPosition.y + moveEntry.moveDirection.y,
-            blockPosition.z + moveEntry.moveDirection.z);
-    }
+        // Union-find over the kept moves: link each move to the move it lands on and to the pusher's previous move.
+        // A pusher's moves are kept or dropped together, and a kept move never lands on a dropped one: that would
+        // have dropped it as well.
+        int[] parent = new int[n];
+        for (i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (i = 0; i < n; i++) {
+            if (dropped[i]) continue;
+            if (next[i] >= 0) union(parent, i, next[i]);
+            if (samePusher[i] >= 0) union(parent, samePusher[i], i);
+        }
 
-    /**
-     * Simplifies connected components by excluding positions that would collide
-     * (multiple blocks moving to the same target). Returns execution order.
-     */
-    @Nonnull
-    private static List<List<Vector3i>> simplifyByCollisions(
-            @Nonnull Map<Vector3i, List<Vector3i>> graph,
-            @Nonnull Map<Vector3i, List<Vector3i>> targetPositionGraph,
-            @Nonnull Map<Vector3i, MoveEntry> moveEntries) {
-        List<List<Vector3i>> connectedComponents = getConnectedComponents(graph);
-        List<List<Vector3i>> result = new ArrayList<>();
-
-        for (List<Vector3i> component : connectedComponents) {
-            List<Vector3i> simplified = new ArrayList<>();
-            for (Vector3i blockPosition : component) {
-                MoveEntry moveEntry = moveEntries.get(blockPosition);
-                if (moveEntry == null) continue;
-
-                Vector3i target = targetPosition(blockPosition, moveEntry);
-                List<Vector3i> targetsAt = targetPositionGraph.get(target);
-                if (targetsAt == null)
-                    continue;
-
-                if (targetsAt.size() > 1)
-                    continue;
-
-                simplified.add(blockPosition);
-            }
+        // Number the components in order of first appearance and bucket the moves by component.
+        int[] componentOf = new int[n];
+        Arrays.fill(componentOf, -1);
+        int[] componentSize = new int[n + 1];
+        int components = 0;
+        int count = 0;
+        for (i = 0; i < n; i++) {
+            if (dropped[i]) continue;
+            int root = find(parent, i);
+            if (componentOf[root] < 0) componentOf[root] = components++;
+            componentSize[componentOf[root] + 1]++;
+            count++;
+        }
+        int[] componentStarts = Arrays.copyOf(componentSize, components + 1);
+        for (int c = 0; c < components; c++) componentStarts[c + 1] += componentStarts[c];
+
+        int[] kept = new int[count];
+        int[] placed = new int[components];
+        for (i = 0; i < n; i++) {
+            if (dropped[i]) continue;
+            int c = componentOf[find(parent, i)];
+            kept[componentStarts[c] + placed[c]++] = i;
+        }
 
-            if (!simplified.isEmpty()) {
-                result.add(simplified);
-            }
+        int[] keptIndex = new int[n];
+        for (int k = 0; k < count; k++) keptIndex[kept[k]] = k;
+
+        MoveEntry[] keptEntries = new MoveEntry[count];
+        long[] keptSources = new long[count];
+        long[] keptTargets = new long[count];
+        boolean[] vacates = new boolean[count];
+        int[] landsOn = new int[count];
+        Arrays.fill(vacates, true);
+        for (int k = 0; k < count; k++) {
+            int m = kept[k];
+            keptEntries[k] = entries[m];
+            keptSources[k] = sources[m];
+            keptTargets[k] = targets[m];
+            landsOn[k] = next[m] >= 0 ? keptIndex[next[m]] : -1;
+            if (landsOn[k] >= 0) vacates[landsOn[k]] = false;
         }
-        
-        return result;
+        return new Plan(keptEntries, keptSources, keptTargets, vacates, landsOn, componentStarts, count);
     }
 
-    @Nonnull
-    private static List<List<Vector3i>> getConnectedComponents(
-            @Nonnull Map<Vector3i, List<Vector3i>> graph) {
-        List<List<Vector3i>> connected = new ArrayList<>();
-        Set<Vector3i> visited = new HashSet<>();
-
-        for (Map.Entry<Vector3i, List<Vector3i>> entry : graph.entrySet()) {
-            if (visited.contains(entry.getKey())) continue;
-            List<Vector3i> component = new ArrayList<>();
-            topologicalSort(entry.getKey(), visited, graph, component);
-            connected.add(component);
+    private static int find(@Nonnull int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
         }
-        return connected;
+        return i;
     }
 
-    private static void topologicalSort(
-            @Nonnull Vector3i node,
-            @Nonnull Set<Vector3i> visited,
-            @Nonnull Map<Vector3i, List<Vector3i>> graph,
-            @Nonnull List<Vector3i> out) {
-        if (visited.contains(node)) return;
-        visited.add(node);
-
-        List<Vector3i> dependents = graph.get(node);
-        if (dependents != null) {
-            for (Vector3i dependent : dependents) {
-                topologicalSort(dependent, visited, graph, out);
-            }
+    private static void union(@Nonnull int[] parent, int a, int b) {
+        int rootA = find(parent, a), rootB = find(parent, b);
+        if (rootA != rootB) parent[rootB] = rootA;
+    }
+
+    private static boolean winsOver(@Nonnull MoveEntry[] entries, @Nonnull long[] sources, int a, int b) {
+        if (entries[a].sequence != entries[b].sequence) {
+            return entries[a].sequence < entries[b].sequence;
         }
-        out.add(node);
+        return sources[a] < sources[b];
     }
 }
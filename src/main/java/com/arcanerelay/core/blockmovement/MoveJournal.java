@@ -0,0 +1,65 @@
+package com.arcanerelay.core.blockmovement;
+
+import com.arcanerelay.state.ArcaneMoveState.MoveEntry;
+import com.arcanerelay.util.BlockUtil;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * What each cell held before a component of linked moves wrote to it, so that a component failing halfway can
+ * be put back. Every cell is written at most once per wave (a kept move owns its target, and a source is only
+ * emptied when no move targets it), so one entry per write is enough. Nothing is read back from the chunk: a
+ * source held the block of its own move, and a target was empty unless it is the source of another move.
+ */
+final class MoveJournal {
+
+    private long[] positions;
+    /** Move whose block the cell held, or null for an empty cell. */
+    private MoveEntry[] previous;
+    private int size;
+
+    MoveJournal(int capacity) {
+        capacity = Math.max(capacity, 8);
+        positions = new long[capacity];
+        previous = new MoveEntry[capacity];
+    }
+
+    /** Remembers that the cell held the block of {@code moveEntry}, or nothing if null; call right before writing to it. */
+    void record(long cell, @Nullable MoveEntry moveEntry) {
+        if (size == positions.length) grow();
+        positions[size] = cell;
+        previous[size] = moveEntry;
+        size++;
+    }
+
+    /** Restores every recorded cell, latest first. {@code chunks} holds every chunk the component touched. */
+    void rollback(@Nonnull Long2ObjectMap<WorldChunk> chunks) {
+        for (int i = size - 1; i >= 0; i--) {
+            long packed = positions[i];
+            int x = BlockUtil.unpackX(packed), y = BlockUtil.unpackY(packed), z = BlockUtil.unpackZ(packed);
+            WorldChunk chunk = chunks.get(ChunkUtil.indexChunkFromBlock(x, z));
+            if (chunk == null) continue;
+
+            MoveEntry moveEntry = previous[i];
+            if (moveEntry == null) {
+                chunk.breakBlock(x, y, z, 0, 4 | 2048);
+                continue;
+            }
+            chunk.setBlock(x, y, z, moveEntry.blockId, moveEntry.blockType, moveEntry.blockRotation, moveEntry.blockFiller, 4);
+            // The move's holder may already be attached to its target, so the restored block gets its own copy.
+            chunk.setState(x, y, z, moveEntry.componentHolder != null ? moveEntry.componentHolder.clone() : null);
+        }
+        size = 0;
+    }
+
+    private void grow() {
+        int capacity = positions.length * 2;
+        positions = Arrays.copyOf(positions, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+    }
+}
@@ -0,0 +1,40 @@
+package com.arcanerelay.core.blockmovement;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Result of scanning a pusher's chain: the direction, the blocks that move and the empty cells they move into.
+ *
+ * @param startX    first chain cell X
+ * @param startY    first chain cell Y
+ * @param startZ    first chain cell Z
+ * @param forward   global push direction {x, y, z}
+ * @param up        global up offset, scaled by the up amount {x, y, z}
+ * @param distance  cells the chain moves; cells {@code chainLength() .. chainLength() + distance - 1} are empty
+ * @param blockIds  block ID per chain cell; its length is the chain length
+ */
+public record PushPlan(
+    int startX,
+    int startY,
+    int startZ,
+    @Nonnull int[] forward,
+    @Nonnull int[] up,
+    int distance,
+    @Nonnull int[] blockIds
+) {
+    public int chainLength() {
+        return blockIds.length;
+    }
+
+    public int cellX(int i) {
+        return startX + forward[0] * i;
+    }
+
+    public int cellY(int i) {
+        return startY + forward[1] * i;
+    }
+
+    public int cellZ(int i) {
+        return startZ + forward[2] * i;
+    }
+}
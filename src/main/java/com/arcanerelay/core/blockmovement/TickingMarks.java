@@ -0,0 +1,82 @@
+package com.arcanerelay.core.blockmovement;
+
+import com.arcanerelay.util.BlockUtil;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.BlockChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.chunk.section.BlockSection;
+import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+
+import javax.annotation.Nonnull;
+import java.util.BitSet;
+
+/**
+ * Blocks to mark as ticking after a round of moves, collected as one bitset per 32x32x32 section so that
+ * neighbours shared by adjacent moved blocks are marked once and each section is looked up once.
+ */
+final class TickingMarks {
+
+    private static final int SECTION_BITS = 5;
+    private static final int SECTION_MASK = (1 << SECTION_BITS) - 1;
+
+    /** Marked blocks per packed section position ({@link BlockUtil#pack} of the section coordinates). */
+    private final Long2ObjectMap<BitSet> sections = new Long2ObjectLinkedOpenHashMap<>();
+
+    /** Marks the block and its 26 neighbours, each in the section (and chunk) it actually belongs to. */
+    void markWithNeighbours(int x, int y, int z) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    mark(x + dx, y + dy, z + dz);
+                }
+            }
+        }
+    }
+
+    void mark(int x, int y, int z) {
+        long sectionKey = BlockUtil.pack(x >> SECTION_BITS, y >> SECTION_BITS, z >> SECTION_BITS);
+        sections.computeIfAbsent(sectionKey, k -> new BitSet()).set(localIndex(x, y, z));
+    }
+
+    /** Applies the marks, fetching each chunk's {@link BlockChunk} and each section once. */
+    void flush(@Nonnull World world) {
+        Store<ChunkStore> store = world.getChunkStore().getStore();
+        long currentChunkIndex = 0;
+        BlockChunk blockChunk = null;
+
+        for (Long2ObjectMap.Entry<BitSet> entry : sections.long2ObjectEntrySet()) {
+            long sectionKey = entry.getLongKey();
+            int baseX = BlockUtil.unpackX(sectionKey) << SECTION_BITS;
+            int baseY = BlockUtil.unpackY(sectionKey) << SECTION_BITS;
+            int baseZ = BlockUtil.unpackZ(sectionKey) << SECTION_BITS;
+
+            long chunkIndex = ChunkUtil.indexChunkFromBlock(baseX, baseZ);
+            if (blockChunk == null || chunkIndex != currentChunkIndex) {
+                WorldChunk chunk = world.getChunk(chunkIndex);
+                blockChunk = chunk != null ? store.getComponent(chunk.getReference(), BlockChunk.getComponentType()) : null;
+                currentChunkIndex = chunkIndex;
+            }
+            if (blockChunk == null)
+                continue;
+
+            BlockSection section = blockChunk.getSectionAtBlockY(baseY);
+            BitSet marks = entry.getValue();
+            for (int i = marks.nextSetBit(0); i >= 0; i = marks.nextSetBit(i + 1)) {
+                section.setTicking(
+                    baseX + (i & SECTION_MASK),
+                    baseY + (i >> (2 * SECTION_BITS)),
+                    baseZ + ((i >> SECTION_BITS) & SECTION_MASK),
+                    true);
+            }
+        }
+        sections.clear();
+    }
+
+    private static int localIndex(int x, int y, int z) {
+        return ((y & SECTION_MASK) << (2 * SECTION_BITS)) | ((z & SECTION_MASK) << SECTION_BITS) | (x & SECTION_MASK);
+    }
+}
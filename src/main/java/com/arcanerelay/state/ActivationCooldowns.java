@@ -0,0 +1,75 @@
+package com.arcanerelay.state;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-world rate limit table for activations that declare a {@code Cooldown} or {@code Debounce}.
+ * Maps each activation ID and block (packed position) to the first arcane tick at which that activation may
+ * run on the block again, so a chain and its members keep separate limits on the same block.
+ * Expired entries are pruned periodically, so the table only holds recently fired blocks.
+ */
+public final class ActivationCooldowns {
+
+   private static final int PRUNE_INTERVAL_TICKS = 256;
+
+   private final Map<String, Long2LongOpenHashMap> blockedUntil = new HashMap<>();
+   private long nextPruneTick;
+
+   /**
+    * Checks whether an activation may run on a block on this tick and records the signal.
+    *
+    * @param activationId activation being run
+    * @param position     packed block position
+    * @param tick         current arcane tick
+    * @param cooldown     ticks after a run during which further signals are ignored
+    * @param debounce     quiet ticks required before the next run; every signal restarts the wait
+    * @return true if the activation should run
+    */
+   public synchronized boolean tryActivate(String activationId, long position, long tick, int cooldown, int debounce) {
+      if (cooldown <= 0 && debounce <= 0) return true;
+
+      if (tick >= nextPruneTick) {
+         prune(tick);
+      }
+
+      Long2LongOpenHashMap blocks = blockedUntil.computeIfAbsent(activationId, k -> new Long2LongOpenHashMap());
+      boolean allowed = !blocks.containsKey(position) || tick >= blocks.get(position);
+      if (allowed) {
+         blocks.put(position, tick + Math.max(cooldown, debounce) + 1);
+      } else if (debounce > 0) {
+         blocks.put(position, Math.max(blocks.get(position), tick + debounce + 1));
+      }
+      return allowed;
+   }
+
+   public synchronized void clear() {
+      blockedUntil.clear();
+   }
+
+   /** Replaces this table's entries with a copy of {@code other}'s. */
+   public void copyFrom(ActivationCooldowns other) {
+      Map<String, Long2LongOpenHashMap> copy = new HashMap<>();
+      long otherNextPruneTick;
+      synchronized (other) {
+         other.blockedUntil.forEach((id, blocks) -> copy.put(id, new Long2LongOpenHashMap(blocks)));
+         otherNextPruneTick = other.nextPruneTick;
+      }
+      synchronized (this) {
+         blockedUntil.clear();
+         blockedUntil.putAll(copy);
+         nextPruneTick = otherNextPruneTick;
+      }
+   }
+
+   private void prune(long tick) {
+      blockedUntil.values().removeIf(blocks -> {
+         blocks.long2LongEntrySet().removeIf((Long2LongMap.Entry e) -> e.getLongValue() <= tick);
+         return blocks.isEmpty();
+      });
+      nextPruneTick = tick + PRUNE_INTERVAL_TICKS;
+   }
+}
@@ -1,9 +1,7 @@
 package com.arcanerelay.state;
 
-import java.util.HashMap;
-import java.util.concurrent.ConcurrentHashMap;
-
-import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.arcanerelay.ArcaneRelayPlugin;
 import com.hypixel.hytale.component.Holder;
@@ -12,40 +10,59 @@ import com.hypixel.hytale.component.ResourceType;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.math.vector.Vector3i;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 
 public class ArcaneMoveState implements Resource<ChunkStore> {
-    private ConcurrentHashMap<Vector3i, MoveEntry> moveEntries;
+    /** Every queued move, including a block claimed by several pushers; the movement graph settles conflicts. */
+    private final ArrayList<MoveEntry> moveEntries;
+    /** Order in which move entries were added; the earliest wins when two moves claim the same cell. */
+    private long nextSequence;
+    /** The rest of each push (entity moves, effects) per packed pusher position, run once its blocks are written. */
+    private final Long2ObjectOpenHashMap<Runnable> followUps = new Long2ObjectOpenHashMap<>();
 
     public static ResourceType<ChunkStore, ArcaneMoveState> getResourceType() {
         return com.arcanerelay.ArcaneRelayPlugin.get().getArcaneMoveStateResourceType();
     }
 
     public ArcaneMoveState() {
-        this.moveEntries = new ConcurrentHashMap<>();
+        this.moveEntries = new ArrayList<>();
+    }
+
+    public void addMoveEntry(long pusher, Vector3i blockPosition, Vector3i moveDirection, BlockType blockType, int blockId, int blockRotation, int filler, int settings, Holder<ChunkStore> componentHolder) {
+        synchronized (this.moveEntries) {
+            // A block pushed twice in one tick is queued twice: the movement graph keeps the earlier push and drops
+            // every move of the later pusher, so neither chain is left half moved.
+            this.moveEntries.add(new MoveEntry(pusher, blockPosition, moveDirection, blockType, blockId, blockRotation, filler, settings, componentHolder, nextSequence++));
+        }
     }
 
-    public void addMoveEntry(Vector3i blockPosition, Vector3i moveDirection, BlockType blockType, int blockId, int blockRotation, int filler, int settings, Holder<ChunkStore> componentHolder) {
+    public List<MoveEntry> getMoveEntries() {
+        // copy the list to avoid concurrent modification exceptions
         synchronized (this.moveEntries) {
-            if (this.moveEntries.containsKey(blockPosition)) {
-                this.moveEntries.get(blockPosition).updateDirection(moveDirection);
-                return;
-            }
+            return new ArrayList<>(this.moveEntries);
+        }
+    }
 
-            this.moveEntries.put(blockPosition, new MoveEntry(blockPosition, moveDirection, blockType, blockId, blockRotation, filler, settings, componentHolder));
+    /**
+     * Defers the rest of a push (entities, effects) until its blocks are written. The first push of a pusher in a
+     * tick wins: returns false if the pusher already pushed, and its blocks must not be queued again.
+     */
+    public boolean addPushFollowUp(long pusher, Runnable followUp) {
+        synchronized (this.moveEntries) {
+            return this.followUps.putIfAbsent(pusher, followUp) == null;
         }
     }
 
-    public HashMap<Vector3i, MoveEntry> getMoveEntries() {
-        // clone the map to avoid concurrent modification exceptions
+    public Long2ObjectOpenHashMap<Runnable> getPushFollowUps() {
         synchronized (this.moveEntries) {
-            HashMap<Vector3i, MoveEntry> clone = new HashMap<>(this.moveEntries);
-            return clone;
+            return new Long2ObjectOpenHashMap<>(this.followUps);
         }
     }
 
     public void clear() {
         synchronized (this.moveEntries) {
             this.moveEntries.clear();
+            this.followUps.clear();
         }
     }
 
@@ -55,6 +72,8 @@ public class ArcaneMoveState implements Resource<ChunkStore> {
     }
 
     public class MoveEntry {
+        /** Packed position of the pusher that queued the move. */
+        public final long pusher;
         public final Vector3i blockPosition;
         public final Vector3i moveDirection;
         public final BlockType blockType;
@@ -63,8 +82,10 @@ public class ArcaneMoveState implements Resource<ChunkStore> {
         public final int blockFiller;
         public final int blockSettings;
         public final Holder<ChunkStore> componentHolder;
+        public final long sequence;
 
-        public MoveEntry(Vector3i blockPosition, Vector3i moveDirection, BlockType blockType, int blockId, int blockRotation, int filler, int settings, Holder<ChunkStore> componentHolder) {
+        public MoveEntry(long pusher, Vector3i blockPosition, Vector3i moveDirection, BlockType blockType, int blockId, int blockRotation, int filler, int settings, Holder<ChunkStore> componentHolder, long sequence) {
+            this.pusher = pusher;
             this.blockPosition = blockPosition;
             this.moveDirection = moveDirection;
             this.blockType = blockType;
@@ -73,12 +94,7 @@ public class ArcaneMoveState implements Resource<ChunkStore> {
             this.blockFiller = filler;
             this.blockSettings = settings;
             this.componentHolder = componentHolder;
-        }
-
-        public void updateDirection(Vector3i moveDirection) {
-            this.moveDirection.x = Math.clamp(this.moveDirection.x + moveDirection.x, -1, 1);
-            this.moveDirection.y = Math.clamp(this.moveDirection.y + moveDirection.y, -1, 1);
-            this.moveDirection.z = Math.clamp(this.moveDirection.z + moveDirection.z, -1, 1);
+            this.sequence = sequence;
         }
     }
 }
@@ -22,6 +22,7 @@ public class ArcaneState implements Resource<ChunkStore> {
    /** Signals from interactions (skip=true); flushed at start of tick, processed on next interval. */
    private final Deque<TriggerEntry> pendingNextTick = new ArrayDeque<>();
    private final AtomicLong lastRunTick = new AtomicLong(Long.MIN_VALUE);
+   private final ActivationCooldowns cooldowns = new ActivationCooldowns();
 
    /** Adds a trigger for the next interval (from interactions). Has skip=true: propagate only, no activation. */
    public void addPendingNextTick(int x, int y, int z, int sourceX, int sourceY, int sourceZ) {
@@ -105,6 +106,17 @@ public class ArcaneState implements Resource<ChunkStore> {
       return lastRunTick.get();
    }
 
+   /** Advances the arcane tick counter. Called once per tick interval, whether or not a wave runs. */
+   public long nextRunTick() {
+      return lastRunTick.updateAndGet(t -> t == Long.MIN_VALUE ? 0 : t + 1);
+   }
+
+   /** Rate limit table for activations with a Cooldown or Debounce. */
+   @Nonnull
+   public ActivationCooldowns getCooldowns() {
+      return cooldowns;
+   }
+
    @Nonnull
    @Override
    public Resource<ChunkStore> clone() {
@@ -119,6 +131,8 @@ public class ArcaneState implements Resource<ChunkStore> {
          clone.pendingNextTick.addAll(this.pendingNextTick);
       }
 
+      clone.cooldowns.copyFrom(this.cooldowns);
+
       return clone;
    }
 }
@@ -7,11 +7,10 @@ import com.arcanerelay.state.ArcaneMoveState.MoveEntry;
 import com.arcanerelay.state.ArcaneState;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.component.system.DelayedSystem;
-import com.hypixel.hytale.math.vector.Vector3i;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.ChunkStore;
 
-import java.util.HashMap;
+import java.util.List;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -55,6 +54,7 @@ public class ArcaneTickSystem extends DelayedSystem<ChunkStore> {
         if (state == null)
             return;
 
+        state.nextRunTick();
         state.flushPendingToTriggers();
         if (!state.hasTriggers())
             return;
@@ -62,8 +62,8 @@ public class ArcaneTickSystem extends DelayedSystem<ChunkStore> {
         ActivationWave.runWave(world, chunkStore, state);
 
         ArcaneMoveState arcaneMoveState = chunkStore.getResource(ArcaneMoveState.getResourceType());
-        HashMap<Vector3i, MoveEntry> moveEntries = arcaneMoveState.getMoveEntries();
-        BlockMovementExecutor.execute(world, moveEntries);
+        List<MoveEntry> moveEntries = arcaneMoveState.getMoveEntries();
+        BlockMovementExecutor.execute(world, moveEntries, arcaneMoveState.getPushFollowUps());
 
         arcaneMoveState.clear();
     }
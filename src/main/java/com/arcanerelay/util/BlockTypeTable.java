@@ -0,0 +1,53 @@
+package com.arcanerelay.util;
+
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Lazily filled table of values derived from a {@link BlockType}, indexed by block ID, so hot paths can replace
+ * string lookups on the block type with an array load. Each entry remembers the BlockType it was computed for and
+ * is recomputed when the block type assets are reloaded.
+ *
+ * @param <V> derived value, should be immutable
+ */
+public final class BlockTypeTable<V> {
+
+    private final Function<BlockType, V> compute;
+    private volatile Entry<?>[] entries = new Entry<?>[0];
+
+    public BlockTypeTable(@Nonnull Function<BlockType, V> compute) {
+        this.compute = compute;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int blockId, @Nonnull BlockType blockType) {
+        Entry<?>[] entries = this.entries;
+        if (blockId >= 0 && blockId < entries.length) {
+            Entry<?> entry = entries[blockId];
+            if (entry != null && entry.blockType == blockType) {
+                return (V) entry.value;
+            }
+        }
+
+        V value = compute.apply(blockType);
+        if (blockId >= 0) {
+            put(blockId, new Entry<>(blockType, value));
+        }
+        return value;
+    }
+
+    /** Entries are immutable, so another thread briefly missing a freshly written slot only costs a recompute. */
+    private synchronized void put(int blockId, @Nonnull Entry<V> entry) {
+        Entry<?>[] entries = this.entries;
+        if (blockId >= entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(blockId + 1, entries.length * 2));
+        }
+        entries[blockId] = entry;
+        this.entries = entries;
+    }
+
+    private record Entry<V>(@Nonnull BlockType blockType, V value) {}
+}
@@ -1,9 +1,9 @@
 package com.arcanerelay.util;
 
 import com.hypixel.hytale.math.util.ChunkUtil;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.util.FillerBlockUtil;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -15,9 +15,30 @@ public final class BlockUtil {
 
     private BlockUtil() { }
 
+    /**
+     * Packs a block position into a single long (26 bits X, 26 bits Z, 12 bits Y), for use as a
+     * primitive map/set key instead of a {@link com.hypixel.hytale.math.vector.Vector3i}.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
     /**
      * For a position that may be part of a multi-block structure (e.g. door filler), finds the main block.
-     * The main block is the non-filler block that has state (e.g. door part, or block with InteractionState).
+     * A filler block stores its offset from the structure's origin, so the main block is found by decoding
+     * that offset rather than by searching the neighbourhood.
      *
      * @param world the world
      * @param chunk the chunk containing the block
@@ -28,33 +49,22 @@ public final class BlockUtil {
      */
     @Nullable
     public static int[] findMainBlock(@Nonnull World world, @Nonnull WorldChunk chunk, int x, int y, int z) {
-        if (chunk.getFiller(x, y, z) == 0) {
+        int filler = chunk.getFiller(x, y, z);
+        if (filler == 0) {
             return new int[]{x, y, z};
         }
 
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dy = -2; dy <= 2; dy++) {
-                for (int dz = -1; dz <= 1; dz++) {
-                    if (dx == 0 && dy == 0 && dz == 0) continue;
-
-                    int tx = x + dx;
-                    int ty = y + dy;
-                    int tz = z + dz;
-                    WorldChunk tChunk = world.getChunk(ChunkUtil.indexChunkFromBlock(tx, tz));
+        int mainX = x - FillerBlockUtil.unpackX(filler);
+        int mainY = y - FillerBlockUtil.unpackY(filler);
+        int mainZ = z - FillerBlockUtil.unpackZ(filler);
+        WorldChunk mainChunk = ChunkUtil.indexChunkFromBlock(mainX, mainZ) == ChunkUtil.indexChunkFromBlock(x, z)
+            ? chunk
+            : world.getChunk(ChunkUtil.indexChunkFromBlock(mainX, mainZ));
 
-                    if (tChunk == null) continue;
-                    if (tChunk.getFiller(tx, ty, tz) != 0) continue;
-
-                    BlockType tBt = tChunk.getBlockType(tx, ty, tz);
-                    if (tBt == null) continue;
-
-                    if (tBt.isDoor() || tBt.getStateForBlock(tBt) != null) {
-                        return new int[]{tx, ty, tz};
-                    }
-                }
-            }
-        }
+        if (mainChunk == null) return null;
+        if (mainChunk.getFiller(mainX, mainY, mainZ) != 0) return null;
+        if (mainChunk.getBlock(mainX, mainY, mainZ) == 0) return null;
 
-        return null;
+        return new int[]{mainX, mainY, mainZ};
     }
 }